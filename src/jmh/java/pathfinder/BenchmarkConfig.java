@@ -0,0 +1,50 @@
+package pathfinder;
+
+import shortestpath.ShortestPathConfig;
+
+/**
+ * The default settings, except for the ones a benchmark changes. The calculation cutoff is long enough that
+ * no search of the benchmarks gives up, so every run does the same work.
+ */
+public class BenchmarkConfig implements ShortestPathConfig {
+    boolean useFairyRings;
+    boolean useTeleports;
+    boolean bidirectionalSearch;
+    boolean jumpPointSearch;
+    boolean hierarchicalSearch;
+
+    @Override
+    public boolean useFairyRings() {
+        return useFairyRings;
+    }
+
+    @Override
+    public boolean useTeleports() {
+        return useTeleports;
+    }
+
+    @Override
+    public boolean bidirectionalSearch() {
+        return bidirectionalSearch;
+    }
+
+    @Override
+    public boolean jumpPointSearch() {
+        return jumpPointSearch;
+    }
+
+    @Override
+    public boolean hierarchicalSearch() {
+        return hierarchicalSearch;
+    }
+
+    @Override
+    public int calculationCutoff() {
+        return 500;
+    }
+
+    @Override
+    public boolean exportPathToClipboard() {
+        return false;
+    }
+}
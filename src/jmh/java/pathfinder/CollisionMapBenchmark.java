@@ -0,0 +1,137 @@
+package pathfinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import shortestpath.ShortestPathPlugin;
+import shortestpath.WorldPointUtil;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.FlagMapFile;
+import shortestpath.pathfinder.NeighborList;
+import shortestpath.pathfinder.PathfinderConfig;
+import shortestpath.pathfinder.SplitFlagMap;
+
+/**
+ * Lookups on the collision map at a fixed set of random walkable tiles of the mainland, one operation being the
+ * lookup of a single tile, and the loading of regions from the map file. The lookups run on a map whose regions
+ * are all loaded already, as they are during most of a search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionMapBenchmark {
+    private static final int REGION_SIZE = 64;
+    private static final int TILES = 4096;
+    private static final int REGIONS = 64;
+
+    private CollisionMap map;
+    private PathfinderConfig pathfinderConfig;
+    private final NeighborList neighbors = new NeighborList();
+    private final int[] tiles = new int[TILES];
+    private final int[] xs = new int[TILES];
+    private final int[] ys = new int[TILES];
+
+    private ByteBuffer file;
+    private Map<SplitFlagMap.Position, ByteBuffer> regions;
+    /** A tile in each of the regions that are loaded, spread evenly over the regions of the file */
+    private final int[] regionXs = new int[REGIONS];
+    private final int[] regionYs = new int[REGIONS];
+
+    @Setup
+    public void setup() throws IOException {
+        file = FlagMapFile.load(ShortestPathPlugin.class.getResource("/collision-map.bin"));
+        regions = FlagMapFile.read(file);
+        map = new CollisionMap(REGION_SIZE, regions);
+        pathfinderConfig = Headless.pathfinderConfig(map, new BenchmarkConfig());
+
+        Random random = new Random(1);
+        for (int i = 0; i < TILES; ) {
+            int x = 2400 + random.nextInt(1100);
+            int y = 2900 + random.nextInt(800);
+            if (!map.isBlocked(x, y, 0)) {
+                tiles[i] = WorldPointUtil.packWorldPoint(x, y, 0);
+                xs[i] = x;
+                ys[i] = y;
+                map.getTraversable(x, y, 0);
+                i++;
+            }
+        }
+
+        List<SplitFlagMap.Position> positions = new ArrayList<>(regions.keySet());
+        positions.sort(Comparator.<SplitFlagMap.Position>comparingInt(p -> p.x).thenComparingInt(p -> p.y));
+        for (int i = 0; i < REGIONS; i++) {
+            SplitFlagMap.Position position = positions.get(i * positions.size() / REGIONS);
+            regionXs[i] = position.x * REGION_SIZE;
+            regionYs[i] = position.y * REGION_SIZE;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public void getNeighbors(Blackhole blackhole) {
+        for (int tile : tiles) {
+            map.getNeighbors(tile, pathfinderConfig, neighbors);
+            blackhole.consume(neighbors.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int get() {
+        int flags = 0;
+        for (int i = 0; i < TILES; i++) {
+            if (map.get(xs[i], ys[i], 0, 0)) {
+                flags++;
+            }
+            if (map.get(xs[i], ys[i], 0, 1)) {
+                flags++;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Reads the index of every region from the loaded map file.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<SplitFlagMap.Position, ByteBuffer> readRegionIndex() throws IOException {
+        return FlagMapFile.read(file);
+    }
+
+    /**
+     * Loads regions into a map that has none loaded yet, together with the traversable directions of all their
+     * tiles, which is the work a search does on entering a region for the first time.
+     */
+    @Benchmark
+    @OperationsPerInvocation(REGIONS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int loadRegion() {
+        CollisionMap unloaded = new CollisionMap(REGION_SIZE, regions);
+        int traversable = 0;
+        for (int i = 0; i < REGIONS; i++) {
+            traversable += unloaded.getTraversable(regionXs[i], regionYs[i], 0);
+        }
+        return traversable;
+    }
+}
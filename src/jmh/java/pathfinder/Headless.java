@@ -0,0 +1,80 @@
+package pathfinder;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.callback.ClientThread;
+import shortestpath.Rune;
+import shortestpath.ShortestPathPlugin;
+import shortestpath.Transport;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.PathfinderConfig;
+
+/**
+ * What the benchmarks need to search without a running client. The client is logged in with every skill at 99,
+ * so transports are not ruled out by levels, and carries plenty of every rune on the standard spellbook, but no
+ * quest is ever read, so those needing a quest stay unusable.
+ */
+public class Headless {
+    private static final int SKILL_LEVEL = 99;
+    private static final int RUNE_QUANTITY = 10000;
+
+    private Headless() {
+    }
+
+    public static Client client() {
+        return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getGameState":
+                        return GameState.LOGGED_IN;
+                    case "getBoostedSkillLevel":
+                        return SKILL_LEVEL;
+                    case "getVarbitValue":
+                        return 0;
+                    case "getItemContainer":
+                        return InventoryID.INVENTORY.equals(args[0]) ? inventory() : null;
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private static ItemContainer inventory() {
+        Rune[] runes = Rune.values();
+        Item[] items = new Item[runes.length];
+        for (int i = 0; i < runes.length; i++) {
+            items[i] = new Item(runes[i].getItemId(), RUNE_QUANTITY);
+        }
+        return (ItemContainer) Proxy.newProxyInstance(ItemContainer.class.getClassLoader(),
+            new Class<?>[]{ItemContainer.class}, (proxy, method, args) -> "getItems".equals(method.getName()) ? items : null);
+    }
+
+    /**
+     * A plugin whose client thread drops the quest refreshes, as the stub client cannot run quest scripts.
+     */
+    public static ShortestPathPlugin plugin() {
+        ClientThread clientThread = new ClientThread() {
+            @Override
+            public void invokeLater(Runnable runnable) {
+            }
+        };
+        return new ShortestPathPlugin() {
+            @Override
+            public ClientThread getClientThread() {
+                return clientThread;
+            }
+        };
+    }
+
+    public static PathfinderConfig pathfinderConfig(CollisionMap map, BenchmarkConfig config) {
+        Map<WorldPoint, List<Transport>> transports = Transport.fromResources(config);
+        return new PathfinderConfig(map, transports, client(), config, plugin());
+    }
+}
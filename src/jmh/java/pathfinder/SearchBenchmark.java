@@ -0,0 +1,123 @@
+package pathfinder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.PathfinderConfig;
+
+/**
+ * Whole searches over a fixed corpus of routes, one operation being a single route. Precomputed routes are left
+ * out, as building their contraction hierarchy takes minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int ROUTES = 4;
+
+    public enum Corpus {
+        /** Walks within a town */
+        SHORT_WALKS(false, new int[][]{
+            {3222, 3218, 3211, 3247},
+            {3213, 3428, 3253, 3420},
+            {2994, 3376, 2946, 3368},
+            {3092, 3245, 3108, 3330},
+        }),
+        /** Walks across the continent, with the boats and other transports that need no teleport */
+        CROSS_CONTINENT(false, new int[][]{
+            {3222, 3218, 2662, 3305},
+            {3213, 3428, 2809, 3440},
+            {3092, 3245, 2606, 3093},
+            {2965, 3380, 3293, 3174},
+        }),
+        /** Routes that start with a teleport or a fairy ring and walk on from where it lands */
+        TELEPORTS(true, new int[][]{
+            {3222, 3218, 2725, 3491},
+            {2965, 3380, 2611, 3393},
+            {3293, 3174, 3493, 3488},
+            {2946, 3368, 2443, 3083},
+        });
+
+        private final boolean teleports;
+        private final int[][] routes;
+
+        Corpus(boolean teleports, int[][] routes) {
+            this.teleports = teleports;
+            this.routes = routes;
+        }
+    }
+
+    public enum Search {
+        SINGLE,
+        BIDIRECTIONAL,
+        JUMP_POINT,
+        HIERARCHICAL
+    }
+
+    @Param
+    public Corpus corpus;
+
+    @Param
+    public Search search;
+
+    private PathfinderConfig pathfinderConfig;
+    private WorldPoint[] starts;
+    private WorldPoint[] targets;
+
+    @Setup
+    public void setup() {
+        BenchmarkConfig config = new BenchmarkConfig();
+        config.useTeleports = corpus.teleports;
+        config.useFairyRings = corpus.teleports;
+        config.bidirectionalSearch = search == Search.BIDIRECTIONAL;
+        config.jumpPointSearch = search == Search.JUMP_POINT;
+        config.hierarchicalSearch = search == Search.HIERARCHICAL;
+        pathfinderConfig = Headless.pathfinderConfig(CollisionMap.fromResources(), config);
+
+        starts = new WorldPoint[ROUTES];
+        targets = new WorldPoint[ROUTES];
+        for (int i = 0; i < ROUTES; i++) {
+            int[] route = corpus.routes[i];
+            starts[i] = new WorldPoint(route[0], route[1], 0);
+            targets[i] = new WorldPoint(route[2], route[3], 0);
+
+            // A route that is no longer reached would be measured as a different search from then on
+            List<WorldPoint> path = run(i).getPath();
+            if (path.isEmpty() || !path.get(path.size() - 1).equals(targets[i])) {
+                throw new IllegalStateException("route " + starts[i] + " -> " + targets[i] + " is not reached");
+            }
+        }
+    }
+
+    private Pathfinder run(int route) {
+        Pathfinder pathfinder = new Pathfinder(pathfinderConfig, starts[route], targets[route]);
+        pathfinder.run();
+        return pathfinder;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUTES)
+    public void search(Blackhole blackhole) {
+        for (int i = 0; i < ROUTES; i++) {
+            blackhole.consume(run(i).getPathSnapshot());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package pathfinder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.Transport;
+
+/**
+ * Parsing the transports from the resources, with the default transports only or with every kind of teleport too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+    @Param({"false", "true"})
+    public boolean teleports;
+
+    private final BenchmarkConfig config = new BenchmarkConfig();
+
+    @Setup
+    public void setup() {
+        config.useTeleports = teleports;
+        config.useFairyRings = teleports;
+    }
+
+    @Benchmark
+    public Map<WorldPoint, List<Transport>> fromResources() {
+        return Transport.fromResources(config);
+    }
+}
@@ -51,7 +51,7 @@ public class PathMapTooltipOverlay extends Overlay {
             List<WorldPoint> path = plugin.getPathfinder().getPath();
             Point cursorPos = client.getMouseCanvasPosition();
             for (int i = 0; i < path.size(); i++) {
-                if (drawTooltip(graphics, cursorPos, path.get(i), i + 1)) {
+                if (drawTooltip(graphics, cursorPos, path.get(i), i + 1, path.size())) {
                     return null;
                 }
             }
@@ -60,7 +60,7 @@ public class PathMapTooltipOverlay extends Overlay {
         return null;
     }
 
-    private boolean drawTooltip(Graphics2D graphics, Point cursorPos, WorldPoint point, int n) {
+    private boolean drawTooltip(Graphics2D graphics, Point cursorPos, WorldPoint point, int n, int steps) {
         Point start = plugin.mapWorldPointToGraphicsPoint(point);
         Point end = plugin.mapWorldPointToGraphicsPoint(point.dx(1).dy(-1));
 
@@ -75,7 +75,7 @@ public class PathMapTooltipOverlay extends Overlay {
             return false;
         }
 
-        List<String> rows = Arrays.asList("Shortest path:", "Step " + n + " of " + plugin.getPathfinder().getPath().size());
+        List<String> rows = Arrays.asList("Shortest path:", "Step " + n + " of " + steps);
 
         graphics.setFont(FontManager.getRunescapeFont());
         FontMetrics fm = graphics.getFontMetrics();
@@ -5,6 +5,8 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import net.runelite.api.Client;
 import net.runelite.api.Perspective;
@@ -15,6 +17,8 @@ import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayPriority;
+import shortestpath.pathfinder.PathSnapshot;
+import shortestpath.pathfinder.Pathfinder;
 
 public class PathMinimapOverlay extends Overlay {
     private static final int TILE_WIDTH = 4;
@@ -23,6 +27,10 @@ public class PathMinimapOverlay extends Overlay {
     private final Client client;
     private final ShortestPathPlugin plugin;
     private final ShortestPathConfig config;
+    /** The tiles of the path on the plane of the player, kept until the path or the plane changes */
+    private List<WorldPoint> planeTiles = Collections.emptyList();
+    private int planeTilesVersion;
+    private int planeTilesPlane = -1;
 
     @Inject
     private PathMinimapOverlay(Client client, ShortestPathPlugin plugin, ShortestPathConfig config) {
@@ -36,26 +44,38 @@ public class PathMinimapOverlay extends Overlay {
 
     @Override
     public Dimension render(Graphics2D graphics) {
-        if (!config.drawMinimap() || plugin.getPathfinder() == null) {
+        Pathfinder pathfinder = plugin.getPathfinder();
+        if (!config.drawMinimap() || pathfinder == null) {
             return null;
         }
 
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         graphics.setClip(plugin.getMinimapClipArea());
 
-        List<WorldPoint> pathPoints = plugin.getPathfinder().getPath();
-        Color pathColor = plugin.getPathfinder().isDone() ? config.colourPath() : config.colourPathCalculating();
-        for (WorldPoint pathPoint : pathPoints) {
-            if (pathPoint.getPlane() != client.getPlane()) {
-                continue;
-            }
-
+        Color pathColor = pathfinder.isDone() ? config.colourPath() : config.colourPathCalculating();
+        for (WorldPoint pathPoint : getPlaneTiles(pathfinder.getPathSnapshot())) {
             drawOnMinimap(graphics, pathPoint, pathColor);
         }
 
         return null;
     }
 
+    private List<WorldPoint> getPlaneTiles(PathSnapshot path) {
+        int plane = client.getPlane();
+        if (path.getVersion() != planeTilesVersion || plane != planeTilesPlane) {
+            List<WorldPoint> tiles = new ArrayList<>();
+            for (WorldPoint point : path.getPoints()) {
+                if (point.getPlane() == plane) {
+                    tiles.add(point);
+                }
+            }
+            planeTiles = tiles;
+            planeTilesVersion = path.getVersion();
+            planeTilesPlane = plane;
+        }
+        return planeTiles;
+    }
+
     private void drawOnMinimap(Graphics2D graphics, WorldPoint location, Color color) {
         for (WorldPoint point : WorldPoint.toLocalInstance(client, location)) {
             LocalPoint lp = LocalPoint.fromWorld(client, point);
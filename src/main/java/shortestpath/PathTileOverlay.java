@@ -19,11 +19,14 @@ import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayPriority;
+import shortestpath.pathfinder.Pathfinder;
 
 public class PathTileOverlay extends Overlay {
     private final Client client;
     private final ShortestPathPlugin plugin;
     private final ShortestPathConfig config;
+    /** The number of tiles of the path being drawn, for the tile counters */
+    private int pathSize;
 
     @Inject
     public PathTileOverlay(Client client, ShortestPathPlugin plugin, ShortestPathConfig config) {
@@ -113,9 +116,10 @@ public class PathTileOverlay extends Overlay {
             this.renderCollisionMap(graphics);
         }
 
-        if (config.drawTiles() && plugin.getPathfinder() != null && plugin.getPathfinder().getPath() != null) {
+        Pathfinder pathfinder = plugin.getPathfinder();
+        if (config.drawTiles() && pathfinder != null) {
             Color color;
-            if (plugin.getPathfinder().isDone()) {
+            if (pathfinder.isDone()) {
                 color = new Color(
                     config.colourPath().getRed(),
                     config.colourPath().getGreen(),
@@ -129,7 +133,9 @@ public class PathTileOverlay extends Overlay {
                     config.colourPathCalculating().getAlpha() / 2);
             }
 
-            List<WorldPoint> path = plugin.getPathfinder().getPath();
+            // The path is read once, so the whole frame draws the same path while the search publishes new ones
+            List<WorldPoint> path = pathfinder.getPath();
+            pathSize = path.size();
             int counter = 0;
             if (TileStyle.LINES.equals(config.pathStyle())) {
                 for (int i = 1; i < path.size(); i++) {
@@ -232,7 +238,7 @@ public class PathTileOverlay extends Overlay {
     private void drawCounter(Graphics2D graphics, double x, double y, int counter) {
         if (counter >= 0 && !TileCounter.DISABLED.equals(config.showTileCounter())) {
             int n = config.tileCounterStep() > 0 ? config.tileCounterStep() : 1;
-            int s = plugin.getPathfinder().getPath().size();
+            int s = pathSize;
             if ((counter % n != 0) && (s != (counter + 1))) {
                 return;
             }
@@ -0,0 +1,48 @@
+package shortestpath;
+
+import lombok.Getter;
+import net.runelite.api.ItemID;
+
+/**
+ * The runes that teleport spells cost, by the name used in the item requirements of the transport files,
+ * together with the staves that provide an unlimited amount of them.
+ */
+public enum Rune {
+    AIR("Air rune", ItemID.AIR_RUNE, ItemID.STAFF_OF_AIR, ItemID.AIR_BATTLESTAFF, ItemID.MYSTIC_AIR_STAFF),
+    WATER("Water rune", ItemID.WATER_RUNE, ItemID.STAFF_OF_WATER, ItemID.WATER_BATTLESTAFF, ItemID.MYSTIC_WATER_STAFF),
+    EARTH("Earth rune", ItemID.EARTH_RUNE, ItemID.STAFF_OF_EARTH, ItemID.EARTH_BATTLESTAFF, ItemID.MYSTIC_EARTH_STAFF),
+    FIRE("Fire rune", ItemID.FIRE_RUNE, ItemID.STAFF_OF_FIRE, ItemID.FIRE_BATTLESTAFF, ItemID.MYSTIC_FIRE_STAFF),
+    LAW("Law rune", ItemID.LAW_RUNE);
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int itemId;
+    private final int[] staves;
+
+    Rune(String name, int itemId, int... staves) {
+        this.name = name;
+        this.itemId = itemId;
+        this.staves = staves;
+    }
+
+    /** Whether the item is a staff that provides the rune */
+    public boolean isProvidedBy(int itemId) {
+        for (int staff : staves) {
+            if (staff == itemId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The rune with the name, or null if the item is not a rune */
+    public static Rune fromName(String name) {
+        for (Rune rune : values()) {
+            if (rune.name.equals(name)) {
+                return rune;
+            }
+        }
+        return null;
+    }
+}
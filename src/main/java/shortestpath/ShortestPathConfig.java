@@ -79,7 +79,7 @@ public interface ShortestPathConfig extends Config {
     @ConfigItem(
         keyName = "useTeleports",
         name = "Use teleports",
-        description = "Whether to include teleportation portals and levers in the path",
+        description = "Whether to include teleportation portals, levers and teleport spells in the path",
         position = 6,
         section = sectionSettings
     )
@@ -171,10 +171,98 @@ public interface ShortestPathConfig extends Config {
         return 5;
     }
 
+    @ConfigItem(
+        keyName = "landmarkEstimates",
+        name = "Landmark estimates",
+        description = "Whether to precompute the costs to a few landmark tiles, which steer searches around walls.<br>" +
+            "Takes under a minute in the background, once for each set of enabled transports",
+        position = 13,
+        section = sectionSettings
+    )
+    default boolean landmarkEstimates() {
+        return true;
+    }
+
+    @Range(
+        min = 0
+    )
+    @ConfigItem(
+        keyName = "expansionBudget",
+        name = "Tile budget",
+        description = "The most tiles a search may explore before it is stopped with the best path so far.<br>" +
+            "Unlike the cutoff it does not depend on how fast the computer is (0 for no limit)",
+        position = 14,
+        section = sectionSettings
+    )
+    default int expansionBudget() {
+        return 0;
+    }
+
+    @ConfigItem(
+        keyName = "bidirectionalSearch",
+        name = "Bidirectional search",
+        description = "Whether to search from the start and the target at the same time.<br>" +
+            "Usually explores fewer tiles on long routes",
+        position = 15,
+        section = sectionSettings
+    )
+    default boolean bidirectionalSearch() {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "jumpPointSearch",
+        name = "Jump point search",
+        description = "Whether to skip over open areas along straight and diagonal lines.<br>" +
+            "Finds paths of the same length while exploring far fewer tiles, but scanning the lines<br>" +
+            "takes most of the time saved, so searches are only slightly faster",
+        position = 16,
+        section = sectionSettings
+    )
+    default boolean jumpPointSearch() {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "hierarchicalSearch",
+        name = "Hierarchical search",
+        description = "Whether to plan routes between region entrances first and then walk each region.<br>" +
+            "Much faster on long routes, but paths can be a few tiles longer",
+        position = 17,
+        section = sectionSettings
+    )
+    default boolean hierarchicalSearch() {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "precomputedRoutes",
+        name = "Precomputed routes",
+        description = "Whether to precompute shortcuts between region entrances for the enabled transports.<br>" +
+            "Takes a few minutes once, and then finds long routes in milliseconds",
+        position = 18,
+        section = sectionSettings
+    )
+    default boolean precomputedRoutes() {
+        return false;
+    }
+
+    @ConfigItem(
+        keyName = "reuseSearches",
+        name = "Reuse searches",
+        description = "Whether a path recalculated after leaving it continues the last search from the target<br>" +
+            "instead of starting over. Keeps up to 64 MB of the last search in memory",
+        position = 19,
+        section = sectionSettings
+    )
+    default boolean reuseSearches() {
+        return false;
+    }
+
     @ConfigSection(
         name = "Display",
         description = "Options for displaying the path on the world map, minimap and scene tiles",
-        position = 13
+        position = 20
     )
     String sectionDisplay = "sectionDisplay";
 
@@ -182,7 +270,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "drawMap",
         name = "Draw path on world map",
         description = "Whether the path should be drawn on the world map",
-        position = 14,
+        position = 21,
         section = sectionDisplay
     )
     default boolean drawMap() {
@@ -193,7 +281,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "drawMinimap",
         name = "Draw path on minimap",
         description = "Whether the path should be drawn on the minimap",
-        position = 15,
+        position = 22,
         section = sectionDisplay
     )
     default boolean drawMinimap() {
@@ -204,7 +292,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "drawTiles",
         name = "Draw path on tiles",
         description = "Whether the path should be drawn on the game tiles",
-        position = 16,
+        position = 23,
         section = sectionDisplay
     )
     default boolean drawTiles() {
@@ -215,7 +303,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "drawTransports",
         name = "Draw transports",
         description = "Whether transports should be drawn",
-        position = 17,
+        position = 24,
         section = sectionDisplay
     )
     default boolean drawTransports() {
@@ -226,7 +314,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "drawCollisionMap",
         name = "Draw collision map",
         description = "Whether the collision map should be drawn",
-        position = 18,
+        position = 25,
         section = sectionDisplay
     )
     default boolean drawCollisionMap() {
@@ -237,7 +325,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "pathStyle",
         name = "Path style",
         description = "Whether to display the path as tiles or a segmented line",
-        position = 19,
+        position = 26,
         section = sectionDisplay
     )
     default TileStyle pathStyle() {
@@ -247,7 +335,7 @@ public interface ShortestPathConfig extends Config {
     @ConfigSection(
         name = "Colours",
         description = "Colours for the path map, minimap and scene tiles",
-        position = 20
+        position = 27
     )
     String sectionColours = "sectionColours";
 
@@ -256,7 +344,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "colourPath",
         name = "Path",
         description = "Colour of the path tiles on the world map, minimap and in the game scene",
-        position = 21,
+        position = 28,
         section = sectionColours
     )
     default Color colourPath() {
@@ -268,7 +356,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "colourPathCalculating",
         name = "Calculating",
         description = "Colour of the path tiles while the pathfinding calculation is in progress",
-        position = 22,
+        position = 29,
         section = sectionColours
     )
     default Color colourPathCalculating() {
@@ -280,7 +368,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "colourTransports",
         name = "Transports",
         description = "Colour of the transport tiles",
-        position = 23,
+        position = 30,
         section = sectionColours
     )
     default Color colourTransports() {
@@ -292,7 +380,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "colourCollisionMap",
         name = "Collision map",
         description = "Colour of the collision map tiles",
-        position = 24,
+        position = 31,
         section = sectionColours
     )
     default Color colourCollisionMap() {
@@ -302,7 +390,7 @@ public interface ShortestPathConfig extends Config {
     @ConfigSection(
         name = "Export",
         description = "Exporting of path",
-        position = 25
+        position = 32
     )
     String sectionExport = "sectionExport";
 
@@ -310,7 +398,7 @@ public interface ShortestPathConfig extends Config {
         keyName = "exportPathToClipboard",
         name = "Export path to clipboard",
         description = "Whether the path should be exported to the clipboard or not after calculation",
-        position = 26,
+        position = 33,
         section = sectionExport
     )
     default boolean exportPathToClipboard() {
@@ -321,7 +409,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "exportFormat",
             name = "Export format",
             description = "What format the export should be in",
-            position = 27,
+            position = 34,
             section = sectionExport
     )
     default ExportType exportFormat() {
@@ -333,7 +421,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "stroke",
             name = "Line color",
             description = "Color of the line<br/>Only works with Geo Json",
-            position = 28,
+            position = 35,
             section = sectionExport
     )
     default Color stroke() {
@@ -345,7 +433,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "width",
             name = "Line width",
             description = "Width of the line<br/>Only works with Geo Json",
-            position = 29,
+            position = 36,
             section = sectionExport
     )
     default int width() {
@@ -357,7 +445,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "StrokeTransport",
             name = "Transport line color",
             description = "Color of transport lines<br/>Only works with Geo Json",
-            position = 30,
+            position = 37,
             section = sectionExport
     )
     default Color strokeTransport() {
@@ -369,7 +457,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "widthTransport",
             name = "Transport line width",
             description = "Width of transport lines<br/>Only works with Geo Json",
-            position = 31,
+            position = 38,
             section = sectionExport
     )
     default int widthTransport() {
@@ -380,7 +468,7 @@ public interface ShortestPathConfig extends Config {
             keyName = "title",
             name = "Description",
             description = "Description of the line<br/>Only works with Geo Json",
-            position = 32,
+            position = 39,
             section = sectionExport
     )
     default String title() {
@@ -10,11 +10,20 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.awt.geom.Ellipse2D;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import net.runelite.api.Client;
 import net.runelite.api.KeyCode;
@@ -24,6 +33,7 @@ import net.runelite.api.Player;
 import net.runelite.api.Point;
 import net.runelite.api.SpriteID;
 import net.runelite.api.Varbits;
+import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuEntryAdded;
@@ -31,6 +41,7 @@ import net.runelite.api.events.MenuOpened;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetInfo;
 import net.runelite.api.worldmap.WorldMap;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
@@ -47,6 +58,8 @@ import net.runelite.client.util.ColorUtil;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.Text;
 import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.ContractionHierarchy;
+import shortestpath.pathfinder.LandmarkTable;
 import shortestpath.pathfinder.Pathfinder;
 import shortestpath.pathfinder.PathfinderConfig;
 
@@ -57,6 +70,7 @@ import shortestpath.pathfinder.PathfinderConfig;
 )
 public class ShortestPathPlugin extends Plugin {
     protected static final String CONFIG_GROUP = "shortestpath";
+    private static final String ADD = "Add";
     private static final String ADD_START = "Add start";
     private static final String ADD_END = "Add end";
     private static final String CLEAR = "Clear";
@@ -65,7 +79,9 @@ public class ShortestPathPlugin extends Plugin {
     private static final String START = ColorUtil.wrapWithColorTag("Start", JagexColors.MENU_TARGET);
     private static final String TARGET = ColorUtil.wrapWithColorTag("Target", JagexColors.MENU_TARGET);
     private static final String TRANSPORT = ColorUtil.wrapWithColorTag("Transport", JagexColors.MENU_TARGET);
+    private static final String WAYPOINT = ColorUtil.wrapWithColorTag("Waypoint", JagexColors.MENU_TARGET);
     private static final String WALK_HERE = "Walk here";
+    private static final File CACHE_DIR = new File(RuneLite.RUNELITE_DIR, "shortest-path");
     private static final BufferedImage MARKER_IMAGE = ImageUtil.loadImageResource(ShortestPathPlugin.class, "/marker.png");
 
     @Inject
@@ -103,7 +119,9 @@ public class ShortestPathPlugin extends Plugin {
     private WorldMapOverlay worldMapOverlay;
 
     private Point lastMenuOpenedPoint;
-    private WorldMapPoint marker;
+    /** The markers of the targets, of which the path leads to the nearest, or of the stops of a tour */
+    private final List<WorldMapPoint> markers = new ArrayList<>();
+    private boolean markersNamed;
     private WorldPoint transportStart;
     private WorldPoint lastLocation = new WorldPoint(0, 0, 0);
     private MenuEntry lastClick;
@@ -116,8 +134,15 @@ public class ShortestPathPlugin extends Plugin {
     @Getter
     private Pathfinder pathfinder;
     private PathfinderConfig pathfinderConfig;
+    private ExecutorService pathfindingExecutor;
     @Getter
     private boolean startPointSet = false;
+    /** Loads and computes landmark tables and contraction hierarchies, one at a time */
+    private ExecutorService precomputeExecutor;
+    /** Keys of the landmark tables being computed, which take too long to start twice */
+    private final Set<String> landmarksLoading = ConcurrentHashMap.newKeySet();
+    /** Keys of the contraction hierarchies being built, which take too long to start twice */
+    private final Set<String> hierarchiesLoading = ConcurrentHashMap.newKeySet();
 
     @Provides
     public ShortestPathConfig provideConfig(ConfigManager configManager) {
@@ -131,6 +156,26 @@ public class ShortestPathPlugin extends Plugin {
 
         pathfinderConfig = new PathfinderConfig(map, transports, client, config, this);
 
+        // A single search runs at a time. Searches are cancelled when replaced, so the few queued ones
+        // finish immediately, and the oldest is dropped should the queue still fill up.
+        pathfindingExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "shortest-path");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardOldestPolicy());
+        // Precomputations take long and much memory, so they run one after another rather than side by side.
+        // Each key is queued at most once, so the queue stays short.
+        precomputeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shortest-path-precompute");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        loadLandmarks();
+        loadHierarchy();
+
         overlayManager.add(pathOverlay);
         overlayManager.add(pathMinimapOverlay);
         overlayManager.add(pathMapOverlay);
@@ -139,6 +184,12 @@ public class ShortestPathPlugin extends Plugin {
 
     @Override
     protected void shutDown() {
+        setPathfinder(null);
+        pathfindingExecutor.shutdownNow();
+        precomputeExecutor.shutdownNow();
+        landmarksLoading.clear();
+        hierarchiesLoading.clear();
+
         overlayManager.remove(pathOverlay);
         overlayManager.remove(pathMinimapOverlay);
         overlayManager.remove(pathMapOverlay);
@@ -157,9 +208,58 @@ public class ShortestPathPlugin extends Plugin {
 
         if (reloadTransports) {
             Map<WorldPoint, List<Transport>> transports = Transport.fromResources(config);
-            pathfinderConfig.getTransports().clear();
-            pathfinderConfig.getTransports().putAll(transports);
+            pathfinderConfig.setTransports(transports);
+        }
+        if (reloadTransports || "landmarkEstimates".equals(event.getKey())) {
+            loadLandmarks();
+        }
+        if (reloadTransports || "precomputedRoutes".equals(event.getKey()) || "avoidWilderness".equals(event.getKey())) {
+            loadHierarchy();
+        }
+    }
+
+    /**
+     * Loads or computes the landmark table for the enabled transport kinds in the background, when landmark
+     * estimates are enabled. Until it is available paths are searched without it.
+     */
+    private void loadLandmarks() {
+        String key = LandmarkTable.key(config.useBoats(), config.useFairyRings(), config.useTeleports());
+        if (!config.landmarkEstimates() || pathfinderConfig.hasLandmarks(key) || !landmarksLoading.add(key)) {
+            return;
         }
+
+        CollisionMap map = pathfinderConfig.getMap();
+        Map<WorldPoint, List<Transport>> transports = new HashMap<>(pathfinderConfig.getTransports());
+        precomputeExecutor.execute(() -> {
+            try {
+                pathfinderConfig.addLandmarks(LandmarkTable.load(CACHE_DIR, key, map, transports));
+            } finally {
+                landmarksLoading.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Loads or builds the contraction hierarchy for the enabled transport kinds and Wilderness setting in the
+     * background, when precomputed routes are enabled. Until it is available paths are searched without it.
+     */
+    private void loadHierarchy() {
+        boolean avoidWilderness = config.avoidWilderness();
+        String key = ContractionHierarchy.key(
+            LandmarkTable.key(config.useBoats(), config.useFairyRings(), config.useTeleports()), avoidWilderness);
+        if (!config.precomputedRoutes() || pathfinderConfig.hasHierarchy(key) || !hierarchiesLoading.add(key)) {
+            return;
+        }
+
+        CollisionMap map = pathfinderConfig.getMap();
+        Map<WorldPoint, List<Transport>> transports = new HashMap<>(pathfinderConfig.getTransports());
+        precomputeExecutor.execute(() -> {
+            try {
+                pathfinderConfig.addHierarchy(ContractionHierarchy.load(CACHE_DIR, key, map, transports, avoidWilderness));
+            } finally {
+                hierarchiesLoading.remove(key);
+            }
+        });
     }
 
     public boolean isNearPath(WorldPoint location) {
@@ -189,18 +289,30 @@ public class ShortestPathPlugin extends Plugin {
             return;
         }
 
+        if (pathfinder.isDone() && !markersNamed) {
+            nameMarkers();
+        }
+
         WorldPoint currentLocation = WorldPoint.fromLocalInstance(client, localPlayer.getLocalLocation());
-        if (currentLocation.distanceTo(pathfinder.getTarget()) < config.reachedDistance()) {
+        if (pathfinder.getTarget() != null &&
+            currentLocation.distanceTo(pathfinder.getTarget()) < config.reachedDistance()) {
             setTarget(null);
             return;
         }
+        if (pathfinder.getStops() != null) {
+            removeReachedStops(currentLocation);
+        }
 
         if (!startPointSet && !isNearPath(currentLocation)) {
             if (config.cancelInstead()) {
                 setTarget(null);
                 return;
             }
-            pathfinder = new Pathfinder(pathfinderConfig, currentLocation, pathfinder.getTarget());
+            if (pathfinder.getStops() != null) {
+                setPathfinder(new Pathfinder(pathfinderConfig, currentLocation, getMarkedPoints(), pathfinder));
+            } else {
+                setPathfinder(new Pathfinder(pathfinderConfig, currentLocation, pathfinder));
+            }
         }
     }
 
@@ -215,6 +327,8 @@ public class ShortestPathPlugin extends Plugin {
 
             addMenuEntry(event, SET, TARGET, 1);
             if (pathfinder != null) {
+                addMenuEntry(event, ADD, TARGET, 1);
+                addMenuEntry(event, ADD, WAYPOINT, 1);
                 if (pathfinder.getTarget() != null) {
                     addMenuEntry(event, SET, START, 1);
                 }
@@ -235,6 +349,8 @@ public class ShortestPathPlugin extends Plugin {
         if (map != null && map.getBounds().contains(client.getMouseCanvasPosition().getX(), client.getMouseCanvasPosition().getY())) {
             addMenuEntry(event, SET, TARGET, 0);
             if (pathfinder != null) {
+                addMenuEntry(event, ADD, TARGET, 0);
+                addMenuEntry(event, ADD, WAYPOINT, 0);
                 if (pathfinder.getTarget() != null) {
                     addMenuEntry(event, SET, START, 0);
                     addMenuEntry(event, CLEAR, PATH, 0);
@@ -282,7 +398,7 @@ public class ShortestPathPlugin extends Plugin {
                     lastClick.getOption() + " " + Text.removeTags(lastClick.getTarget()) + " " + lastClick.getIdentifier()
             );
             Transport transport = new Transport(transportStart, transportEnd);
-            pathfinderConfig.getTransports().computeIfAbsent(transportStart, k -> new ArrayList<>()).add(transport);
+            pathfinderConfig.addTransport(transport);
         }
 
         if (entry.getOption().equals("Copy Position")) {
@@ -296,6 +412,14 @@ public class ShortestPathPlugin extends Plugin {
             setTarget(getSelectedWorldPoint());
         }
 
+        if (entry.getOption().equals(ADD) && entry.getTarget().equals(TARGET)) {
+            addTarget(getSelectedWorldPoint());
+        }
+
+        if (entry.getOption().equals(ADD) && entry.getTarget().equals(WAYPOINT)) {
+            addWaypoint(getSelectedWorldPoint());
+        }
+
         if (entry.getOption().equals(SET) && entry.getTarget().equals(START)) {
             setStart(getSelectedWorldPoint());
         }
@@ -326,24 +450,110 @@ public class ShortestPathPlugin extends Plugin {
             return;
         }
 
+        removeMarkers();
         if (target == null) {
-            worldMapPointManager.remove(marker);
-            marker = null;
-            pathfinder = null;
+            setPathfinder(null);
             startPointSet = false;
         } else {
-            worldMapPointManager.removeIf(x -> x == marker);
-            marker = new WorldMapPoint(target, MARKER_IMAGE);
-            marker.setName("Target");
-            marker.setTarget(marker.getWorldPoint());
-            marker.setJumpOnClick(true);
-            worldMapPointManager.add(marker);
+            addMarker(target);
 
             WorldPoint start = WorldPoint.fromLocalInstance(client, localPlayer.getLocalLocation());
             if (startPointSet && pathfinder != null) {
                 start = pathfinder.getStart();
             }
-            pathfinder = new Pathfinder(pathfinderConfig, start, target);
+            setPathfinder(new Pathfinder(pathfinderConfig, start, target));
+        }
+    }
+
+    /**
+     * Adds another target, after which the path leads to whichever target is the nearest.
+     */
+    private void addTarget(WorldPoint target) {
+        Player localPlayer = client.getLocalPlayer();
+        if (target == null || pathfinder == null || (!startPointSet && localPlayer == null)) {
+            return;
+        }
+
+        addMarker(target);
+        List<WorldArea> targets = new ArrayList<>();
+        for (WorldPoint point : getMarkedPoints()) {
+            targets.add(new WorldArea(point, 1, 1));
+        }
+
+        WorldPoint start = startPointSet ? pathfinder.getStart()
+            : WorldPoint.fromLocalInstance(client, localPlayer.getLocalLocation());
+        setPathfinder(new Pathfinder(pathfinderConfig, start, targets));
+    }
+
+    /**
+     * Adds another stop, after which the path is a tour past every marked tile in the cheapest order.
+     * The costs between the stops that were already marked are reused from the current search.
+     */
+    private void addWaypoint(WorldPoint waypoint) {
+        Player localPlayer = client.getLocalPlayer();
+        if (waypoint == null || pathfinder == null || (!startPointSet && localPlayer == null)) {
+            return;
+        }
+
+        addMarker(waypoint);
+        WorldPoint start = startPointSet ? pathfinder.getStart()
+            : WorldPoint.fromLocalInstance(client, localPlayer.getLocalLocation());
+        setPathfinder(new Pathfinder(pathfinderConfig, start, getMarkedPoints(), pathfinder));
+    }
+
+    /**
+     * Removes the markers of the stops of the tour that were reached, so that the tour is replanned past the
+     * remaining stops only.
+     */
+    private void removeReachedStops(WorldPoint location) {
+        markers.removeIf(marker -> {
+            if (location.distanceTo(marker.getWorldPoint()) < config.reachedDistance()) {
+                worldMapPointManager.remove(marker);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private List<WorldPoint> getMarkedPoints() {
+        List<WorldPoint> points = new ArrayList<>(markers.size());
+        for (WorldMapPoint marker : markers) {
+            points.add(marker.getWorldPoint());
+        }
+        return points;
+    }
+
+    private void addMarker(WorldPoint target) {
+        WorldMapPoint marker = new WorldMapPoint(target, MARKER_IMAGE);
+        marker.setName("Target");
+        marker.setTarget(marker.getWorldPoint());
+        marker.setJumpOnClick(true);
+        worldMapPointManager.add(marker);
+        markers.add(marker);
+    }
+
+    private void removeMarkers() {
+        for (WorldMapPoint marker : markers) {
+            worldMapPointManager.remove(marker);
+        }
+        markers.clear();
+    }
+
+    /**
+     * Names the marker of the target the path leads to, when there are several targets, or the markers of the
+     * stops of a tour by the order they are visited in.
+     */
+    private void nameMarkers() {
+        markersNamed = true;
+        if (pathfinder.getTargets() != null) {
+            for (WorldMapPoint marker : markers) {
+                marker.setName(marker.getWorldPoint().equals(pathfinder.getTarget()) ? "Nearest target" : "Target");
+            }
+        } else if (pathfinder.getStops() != null) {
+            List<WorldPoint> stops = pathfinder.getStops();
+            for (WorldMapPoint marker : markers) {
+                marker.setName("Waypoint " + (stops.indexOf(marker.getWorldPoint()) + 1));
+            }
         }
     }
 
@@ -352,7 +562,21 @@ public class ShortestPathPlugin extends Plugin {
             return;
         }
         startPointSet = true;
-        pathfinder = new Pathfinder(pathfinderConfig, start, pathfinder.getTarget());
+        setPathfinder(new Pathfinder(pathfinderConfig, start, pathfinder));
+    }
+
+    /**
+     * Replaces the current search, cancelling it so it stops using the pathfinding thread.
+     */
+    private void setPathfinder(Pathfinder newPathfinder) {
+        if (pathfinder != null) {
+            pathfinder.cancel();
+        }
+        pathfinder = newPathfinder;
+        markersNamed = false;
+        if (newPathfinder != null) {
+            pathfindingExecutor.execute(newPathfinder);
+        }
     }
 
     public WorldPoint calculateMapPoint(Point point) {
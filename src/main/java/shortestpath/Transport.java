@@ -17,6 +17,21 @@ import net.runelite.api.coords.WorldPoint;
  * This class represents a travel point between two WorldPoints.
  */
 public class Transport {
+    /**
+     * The tile of the virtual node joining the fairy rings. Every ring leads to it at the cost of using a ring and
+     * it leads on to every ring for free, so N rings need 2N transports instead of one for every pair. It lies in
+     * the empty corner of the map, where it cannot be walked to, and is left out of paths.
+     */
+    public static final WorldPoint FAIRY_RING_HUB = new WorldPoint(0, 0, 0);
+    private static final int PACKED_FAIRY_RING_HUB = WorldPointUtil.packWorldPoint(FAIRY_RING_HUB);
+    /**
+     * The origin of the teleports that can be cast from any tile. A search steps onto it from its start, so they
+     * are a single set of transports rather than copies at every tile. It is on another plane than the fairy ring
+     * hub, so the two are not next to each other.
+     */
+    public static final WorldPoint TELEPORT_HUB = new WorldPoint(0, 0, 1);
+    private static final int PACKED_TELEPORT_HUB = WorldPointUtil.packWorldPoint(TELEPORT_HUB);
+
     /** The starting point of this transport */
     @Getter
     private final WorldPoint origin;
@@ -28,6 +43,9 @@ public class Transport {
     /** The skill levels required to use this transport */
     private final int[] skillLevels = new int[Skill.values().length];
 
+    /** The runes required to use this transport, by rune ordinal */
+    private final int[] runes = new int[Rune.values().length];
+
     /** The quest required to use this transport */
     @Getter
     private Quest quest;
@@ -52,6 +70,10 @@ public class Transport {
     @Getter
     private boolean isTeleport;
 
+    /** Whether the transport is a spell of the standard spellbook */
+    @Getter
+    private boolean isSpell;
+
     /** The additional travel time */
     @Getter
     private int wait;
@@ -74,7 +96,8 @@ public class Transport {
         String[] parts_origin = parts[0].split(DELIM);
         String[] parts_destination = parts[1].split(DELIM);
 
-        origin = new WorldPoint(
+        // Teleports without an origin can be cast from anywhere
+        origin = parts[0].isEmpty() ? TELEPORT_HUB : new WorldPoint(
             Integer.parseInt(parts_origin[0]),
             Integer.parseInt(parts_origin[1]),
             Integer.parseInt(parts_origin[2]));
@@ -103,6 +126,17 @@ public class Transport {
             }
         }
 
+        // Item requirements, of which only runes are checked
+        if (parts.length >= 5 && !parts[4].isEmpty()) {
+            for (String requirement : parts[4].split(";")) {
+                int separator = requirement.indexOf(DELIM);
+                Rune rune = Rune.fromName(requirement.substring(separator + 1));
+                if (rune != null) {
+                    runes[rune.ordinal()] = Integer.parseInt(requirement.substring(0, separator));
+                }
+            }
+        }
+
         // Quest requirements
         if (parts.length >= 6 && !parts[5].isEmpty()) {
             this.quest = findQuest(parts[5]);
@@ -122,11 +156,21 @@ public class Transport {
         return skillLevels[skill.ordinal()];
     }
 
+    /** The number of the rune required to use this transport */
+    public int getRequiredRunes(Rune rune) {
+        return runes[rune.ordinal()];
+    }
+
     /** Whether the transport has a quest requirement */
     public boolean isQuestLocked() {
         return quest != null;
     }
 
+    /** Whether the packed tile is a virtual hub node rather than a tile of the map */
+    public static boolean isHub(int packedPoint) {
+        return packedPoint == PACKED_FAIRY_RING_HUB || packedPoint == PACKED_TELEPORT_HUB;
+    }
+
     private static Quest findQuest(String questName) {
         for (Quest quest : Quest.values()) {
             if (quest.getName().equals(questName)) {
@@ -156,7 +200,9 @@ public class Transport {
                 } else {
                     Transport transport = new Transport(line);
                     transport.isBoat = TransportType.BOAT.equals(transportType);
-                    transport.isTeleport = TransportType.TELEPORT.equals(transportType);
+                    transport.isTeleport = TransportType.TELEPORT.equals(transportType) ||
+                        TransportType.GLOBAL_TELEPORT.equals(transportType);
+                    transport.isSpell = TransportType.GLOBAL_TELEPORT.equals(transportType);
                     if (!config.useAgilityShortcuts() && transport.isAgilityShortcut) {
                         continue;
                     }
@@ -167,20 +213,19 @@ public class Transport {
                     transports.computeIfAbsent(origin, k -> new ArrayList<>()).add(transport);
                 }
             }
-            for (WorldPoint origin : fairyRings) {
-                for (int i = 0; i < fairyRings.size(); i++) {
-                    WorldPoint destination = fairyRings.get(i);
-                    String questName = fairyRingsQuestNames.get(i);
-                    if (origin.equals(destination)) {
-                        continue;
-                    }
-                    Transport transport = new Transport(origin, destination, true);
-                    transport.wait = 5;
-                    transports.computeIfAbsent(origin, k -> new ArrayList<>()).add(transport);
-                    if (!Strings.isNullOrEmpty(questName)) {
-                        transport.quest = findQuest(questName);
-                    }
+            // The quest of a ring is required to travel to it, so it is checked on the way out of the hub
+            for (int i = 0; i < fairyRings.size(); i++) {
+                WorldPoint ring = fairyRings.get(i);
+                Transport toHub = new Transport(ring, FAIRY_RING_HUB, true);
+                toHub.wait = 5;
+                transports.computeIfAbsent(ring, k -> new ArrayList<>()).add(toHub);
+
+                Transport fromHub = new Transport(FAIRY_RING_HUB, ring, true);
+                String questName = fairyRingsQuestNames.get(i);
+                if (!Strings.isNullOrEmpty(questName)) {
+                    fromHub.quest = findQuest(questName);
                 }
+                transports.computeIfAbsent(FAIRY_RING_HUB, k -> new ArrayList<>()).add(fromHub);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -202,6 +247,7 @@ public class Transport {
 
         if (config.useTeleports()) {
             addTransports(transports, config, "/teleports.txt", TransportType.TELEPORT);
+            addTransports(transports, config, "/global_teleports.txt", TransportType.GLOBAL_TELEPORT);
         }
 
         return transports;
@@ -211,6 +257,7 @@ public class Transport {
         TRANSPORT,
         BOAT,
         FAIRY_RING,
-        TELEPORT
+        TELEPORT,
+        GLOBAL_TELEPORT
     }
 }
@@ -0,0 +1,81 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Helpers for world points packed into a single int, so the pathfinder can work on coordinates
+ * without allocating a {@link WorldPoint} per tile.
+ *
+ * The layout is 15 bits of x, 15 bits of y and 2 bits of plane.
+ */
+public class WorldPointUtil {
+    public static final int UNDEFINED = -1;
+
+    public static int packWorldPoint(WorldPoint point) {
+        if (point == null) {
+            return UNDEFINED;
+        }
+        return packWorldPoint(point.getX(), point.getY(), point.getPlane());
+    }
+
+    public static int packWorldPoint(int x, int y, int plane) {
+        return (x & 0x7FFF) | ((y & 0x7FFF) << 15) | ((plane & 0x3) << 30);
+    }
+
+    public static WorldPoint unpackWorldPoint(int packedPoint) {
+        if (packedPoint == UNDEFINED) {
+            return null;
+        }
+        return new WorldPoint(unpackWorldX(packedPoint), unpackWorldY(packedPoint), unpackWorldPlane(packedPoint));
+    }
+
+    public static int unpackWorldX(int packedPoint) {
+        return packedPoint & 0x7FFF;
+    }
+
+    public static int unpackWorldY(int packedPoint) {
+        return (packedPoint >> 15) & 0x7FFF;
+    }
+
+    public static int unpackWorldPlane(int packedPoint) {
+        return (packedPoint >> 30) & 0x3;
+    }
+
+    public static int dxdy(int packedPoint, int dx, int dy) {
+        return packWorldPoint(unpackWorldX(packedPoint) + dx, unpackWorldY(packedPoint) + dy, unpackWorldPlane(packedPoint));
+    }
+
+    public static int distanceBetween(int previousPacked, int currentPacked, int diagonal) {
+        int dx = Math.abs(unpackWorldX(previousPacked) - unpackWorldX(currentPacked));
+        int dy = Math.abs(unpackWorldY(previousPacked) - unpackWorldY(currentPacked));
+
+        if (diagonal == 1) {
+            return Math.max(dx, dy);
+        } else if (diagonal == 2) {
+            return dx + dy;
+        }
+
+        return Integer.MAX_VALUE;
+    }
+
+    public static int distanceBetween(int previousPacked, int currentPacked) {
+        return distanceBetween(previousPacked, currentPacked, 1);
+    }
+
+    public static int distanceBetween(WorldPoint previous, WorldPoint current) {
+        return Math.max(Math.abs(previous.getX() - current.getX()), Math.abs(previous.getY() - current.getY()));
+    }
+
+    public static int distanceToArea(int packedPoint, WorldArea area) {
+        if (unpackWorldPlane(packedPoint) != area.getPlane()) {
+            return Integer.MAX_VALUE;
+        }
+
+        int x = unpackWorldX(packedPoint);
+        int y = unpackWorldY(packedPoint);
+        int dx = Math.max(0, Math.max(area.getX() - x, x - (area.getX() + area.getWidth() - 1)));
+        int dy = Math.max(0, Math.max(area.getY() - y, y - (area.getY() + area.getHeight() - 1)));
+        return Math.max(dx, dy);
+    }
+}
@@ -0,0 +1,122 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Dial's bucket queue of node indices ordered by a small integer priority, such as the estimated cost of a path
+ * through the node. Walking steps and transport waits are both whole ticks, so every priority has a bucket of its
+ * own. Adding and polling a node take constant time, apart from skipping empty buckets, which never adds up to
+ * more than the range of priorities. Nodes with the same priority are polled last in first out, so a search
+ * keeps following the path it reached them along.
+ *
+ * Priorities may be added below the lowest one in the queue, as happens with an inconsistent heuristic. Priorities
+ * past the last bucket only come from an infinite estimate, when the target cannot be reached even without walls,
+ * and are kept in a binary heap that is only polled once every bucket is empty.
+ */
+public class BucketQueue {
+    private static final int MAXIMUM_BUCKETS = 1 << 20;
+
+    private int[][] buckets;
+    private int[] sizes;
+    /** No bucket below this one has nodes */
+    private int minimum;
+    private int size;
+    private final NodeHeap overflow = new NodeHeap(1);
+
+    public BucketQueue() {
+        clear();
+    }
+
+    public void add(int node, long priority) {
+        size++;
+        if (priority >= MAXIMUM_BUCKETS) {
+            overflow.add(node, priority);
+            return;
+        }
+
+        int index = (int) priority;
+        if (index >= buckets.length) {
+            int length = Math.min(MAXIMUM_BUCKETS, Math.max(index + 1, buckets.length << 1));
+            buckets = Arrays.copyOf(buckets, length);
+            sizes = Arrays.copyOf(sizes, length);
+        }
+        int[] bucket = buckets[index];
+        if (bucket == null) {
+            bucket = buckets[index] = new int[8];
+        } else if (sizes[index] == bucket.length) {
+            bucket = buckets[index] = Arrays.copyOf(bucket, bucket.length << 1);
+        }
+        bucket[sizes[index]++] = node;
+        minimum = Math.min(minimum, index);
+    }
+
+    public int poll() {
+        long priority = peekPriority();
+        size--;
+        if (priority >= buckets.length) {
+            return overflow.poll();
+        }
+        return buckets[minimum][--sizes[minimum]];
+    }
+
+    /**
+     * The priority of the node that would be returned by the next {@link #poll()}.
+     */
+    public long peekPriority() {
+        while (minimum < buckets.length && sizes[minimum] == 0) {
+            minimum++;
+        }
+        return minimum < buckets.length ? minimum : overflow.peekPriority();
+    }
+
+    /**
+     * Recomputes the priority of every node, dropping the nodes given a negative priority.
+     */
+    public void reorder(IntToLongFunction priority) {
+        int[] nodes = new int[size];
+        int count = 0;
+        while (!isEmpty()) {
+            nodes[count++] = poll();
+        }
+        clear();
+        for (int i = 0; i < count; i++) {
+            long newPriority = priority.applyAsLong(nodes[i]);
+            if (newPriority >= 0) {
+                add(nodes[i], newPriority);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all nodes and releases the buckets.
+     */
+    public void clear() {
+        buckets = new int[64][];
+        sizes = new int[64];
+        minimum = 0;
+        size = 0;
+        overflow.clear();
+    }
+
+    /**
+     * The size of the buckets in bytes.
+     */
+    public int heapSize() {
+        int bytes = buckets.length * (Long.BYTES + Integer.BYTES) + overflow.heapSize();
+        for (int[] bucket : buckets) {
+            if (bucket != null) {
+                bytes += bucket.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+}
@@ -2,19 +2,20 @@ package shortestpath.pathfinder;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.ByteBuffer;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.function.Predicate;
 import shortestpath.ShortestPathPlugin;
 import shortestpath.Transport;
-import shortestpath.Util;
+import shortestpath.WorldPointUtil;
 
 public class CollisionMap extends SplitFlagMap {
-    public CollisionMap(int regionSize, Map<Position, byte[]> compressedRegions) {
-        super(regionSize, compressedRegions, 2);
+    private static final OrdinalDirection[] DIRECTIONS = OrdinalDirection.values();
+    /** The config's usable transports are compiled in advance, so none of them has to be filtered out */
+    private static final Predicate<Transport> ALL_TRANSPORTS = transport -> true;
+
+    public CollisionMap(int regionSize, Map<Position, ByteBuffer> regions) {
+        super(regionSize, regions, 2);
     }
 
     public boolean n(int x, int y, int z) {
@@ -53,20 +54,109 @@ public class CollisionMap extends SplitFlagMap {
         return !n(x, y, z) && !s(x, y, z) && !e(x, y, z) && !w(x, y, z);
     }
 
-    public List<Node> getNeighbors(Node node, PathfinderConfig config) {
-        int x = node.position.getX();
-        int y = node.position.getY();
-        int z = node.position.getPlane();
+    public void getNeighbors(int position, PathfinderConfig config, NeighborList neighbors) {
+        getNeighbors(position, config.getUsableTransportsByOrigin(), ALL_TRANSPORTS, neighbors);
+    }
 
-        List<Node> neighbors = new ArrayList<>();
+    /**
+     * Fills in every tile reachable in one step from the given tile, together with the cost of that step,
+     * following the transports of the index that pass the filter.
+     */
+    public void getNeighbors(int position, TransportIndex transportsByOrigin,
+                             Predicate<Transport> usable, NeighborList neighbors) {
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int z = WorldPointUtil.unpackWorldPlane(position);
+
+        neighbors.clear();
+
+        int row = transportsByOrigin.find(position);
+        if (row != TransportIndex.NONE) {
+            for (int i = transportsByOrigin.getStart(row); i < transportsByOrigin.getEnd(row); i++) {
+                if (usable.test(transportsByOrigin.getTransport(i))) {
+                    neighbors.add(transportsByOrigin.getPosition(i), transportsByOrigin.getCost(i));
+                }
+            }
+        }
 
-        for (Transport transport : config.getTransports().getOrDefault(node.position, new ArrayList<>())) {
-            if (config.useTransport(transport)) {
-                neighbors.add(new TransportNode(transport.getDestination(), node, transport.getWait()));
+        int traversable = getTraversable(x, y, z);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            OrdinalDirection d = DIRECTIONS[i];
+            int neighbor = WorldPointUtil.packWorldPoint(x + d.x, y + d.y, z);
+            if ((traversable & (1 << i)) != 0) {
+                neighbors.add(neighbor, 1);
+            } else if (Math.abs(d.x + d.y) == 1 && transportsByOrigin.contains(neighbor) && isBlocked(x + d.x, y + d.y, z)) {
+                neighbors.add(neighbor, transportCost(position, neighbor, 0));
             }
         }
+    }
+
+    /**
+     * The reverse of {@link #getNeighbors}: fills in every tile with an edge leading into the given tile,
+     * together with the cost of that edge.
+     */
+    public void getPredecessors(int position, PathfinderConfig config, NeighborList neighbors) {
+        getPredecessors(position, config.getUsableTransportsByOrigin(), config.getUsableTransportsByDestination(),
+            ALL_TRANSPORTS, neighbors);
+    }
+
+    public void getPredecessors(int position, TransportIndex transportsByOrigin, TransportIndex transportsByDestination,
+                                Predicate<Transport> usable, NeighborList neighbors) {
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int z = WorldPointUtil.unpackWorldPlane(position);
 
-        boolean[] traversable;
+        neighbors.clear();
+
+        int row = transportsByDestination.find(position);
+        if (row != TransportIndex.NONE) {
+            for (int i = transportsByDestination.getStart(row); i < transportsByDestination.getEnd(row); i++) {
+                if (usable.test(transportsByDestination.getTransport(i))) {
+                    neighbors.add(transportsByDestination.getPosition(i), transportsByDestination.getCost(i));
+                }
+            }
+        }
+
+        // A blocked transport origin can be entered from any side that cannot otherwise walk onto it
+        boolean blockedOrigin = transportsByOrigin.contains(position) && isBlocked(x, y, z);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            OrdinalDirection d = DIRECTIONS[i];
+            int neighbor = WorldPointUtil.packWorldPoint(x - d.x, y - d.y, z);
+            if ((getTraversable(x - d.x, y - d.y, z) & (1 << i)) != 0) {
+                neighbors.add(neighbor, 1);
+            } else if (blockedOrigin && Math.abs(d.x + d.y) == 1) {
+                neighbors.add(neighbor, transportCost(neighbor, position, 0));
+            }
+        }
+    }
+
+    /**
+     * The directions that can be walked from a tile, as a bitmask indexed by {@link OrdinalDirection} ordinal.
+     * The masks are built for a whole region the first time one of its tiles is queried.
+     */
+    public int getTraversable(int x, int y, int z) {
+        FlagMap region = getRegion(x, y);
+        if (x < region.minX || x > region.maxX || y < region.minY || y > region.maxY || z < 0 || z > FlagMap.PLANE_COUNT - 1) {
+            return computeTraversable(x, y, z);
+        }
+
+        byte[] traversable = region.traversable;
+        if (traversable == null) {
+            traversable = new byte[region.tileCount()];
+            for (int tz = 0; tz < FlagMap.PLANE_COUNT; tz++) {
+                for (int ty = region.minY; ty <= region.maxY; ty++) {
+                    for (int tx = region.minX; tx <= region.maxX; tx++) {
+                        traversable[region.tileIndex(tx, ty, tz)] = (byte) computeTraversable(tx, ty, tz);
+                    }
+                }
+            }
+            region.traversable = traversable;
+        }
+
+        return traversable[region.tileIndex(x, y, z)] & 0xFF;
+    }
+
+    private int computeTraversable(int x, int y, int z) {
         if (isBlocked(x, y, z)) {
             boolean westBlocked = isBlocked(x - 1, y, z);
             boolean eastBlocked = isBlocked(x + 1, y, z);
@@ -76,7 +166,7 @@ public class CollisionMap extends SplitFlagMap {
             boolean southEastBlocked = isBlocked(x + 1, y - 1, z);
             boolean northWestBlocked = isBlocked(x - 1, y + 1, z);
             boolean northEastBlocked = isBlocked(x + 1, y + 1, z);
-            traversable = new boolean[] {
+            return directions(
                 !westBlocked,
                 !eastBlocked,
                 !southBlocked,
@@ -84,43 +174,35 @@ public class CollisionMap extends SplitFlagMap {
                 !southWestBlocked && !westBlocked && !southBlocked,
                 !southEastBlocked && !eastBlocked && !southBlocked,
                 !northWestBlocked && !westBlocked && !northBlocked,
-                !northEastBlocked && !eastBlocked && !northBlocked
-            };
-        } else {
-            traversable = new boolean[] {
-                w(x, y, z), e(x, y, z), s(x, y, z), n(x, y, z), sw(x, y, z), se(x, y, z), nw(x, y, z), ne(x, y, z)
-            };
+                !northEastBlocked && !eastBlocked && !northBlocked);
         }
 
-        for (int i = 0; i < traversable.length; i++) {
-            OrdinalDirection d = OrdinalDirection.values()[i];
-            if (traversable[i]) {
-                neighbors.add(new Node(node.position.dx(d.x).dy(d.y), node));
-            } else if (Math.abs(d.x + d.y) == 1 && isBlocked(x + d.x, y + d.y, z)) {
-                for (Transport transport : config.getTransports().getOrDefault(node.position.dx(d.x).dy(d.y), new ArrayList<>())) {
-                    neighbors.add(new Node(transport.getOrigin(), node));
-                }
-            }
-        }
+        return directions(w(x, y, z), e(x, y, z), s(x, y, z), n(x, y, z), sw(x, y, z), se(x, y, z), nw(x, y, z), ne(x, y, z));
+    }
+
+    /**
+     * Packs traversable directions into a bitmask indexed by {@link OrdinalDirection} ordinal.
+     */
+    private static int directions(boolean w, boolean e, boolean s, boolean n, boolean sw, boolean se, boolean nw, boolean ne) {
+        return (w ? 1 : 0) | (e ? 1 << 1 : 0) | (s ? 1 << 2 : 0) | (n ? 1 << 3 : 0) |
+            (sw ? 1 << 4 : 0) | (se ? 1 << 5 : 0) | (nw ? 1 << 6 : 0) | (ne ? 1 << 7 : 0);
+    }
 
-        return neighbors;
+    /**
+     * The cost of moving between two tiles along a transport. Moves of a single tile on the same plane
+     * cost like walking, anything further costs the transport's wait.
+     */
+    public static int transportCost(int origin, int destination, int wait) {
+        int distance = WorldPointUtil.distanceBetween(origin, destination);
+        boolean isTransport = distance > 1 || WorldPointUtil.unpackWorldPlane(origin) != WorldPointUtil.unpackWorldPlane(destination);
+        return isTransport ? wait : distance;
     }
 
     public static CollisionMap fromResources() {
-        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
-        try (ZipInputStream in = new ZipInputStream(ShortestPathPlugin.class.getResourceAsStream("/collision-map.zip"))) {
-            ZipEntry entry;
-            while ((entry = in.getNextEntry()) != null) {
-                String[] n = entry.getName().split("_");
-
-                compressedRegions.put(
-                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
-                        Util.readAllBytes(in)
-                );
-            }
+        try {
+            return new CollisionMap(64, FlagMapFile.read(FlagMapFile.load(ShortestPathPlugin.class.getResource("/collision-map.bin"))));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return new CollisionMap(64, compressedRegions);
     }
 }
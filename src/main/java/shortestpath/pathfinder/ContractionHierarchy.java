@@ -0,0 +1,647 @@
+package shortestpath.pathfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.Getter;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+
+/**
+ * A contraction hierarchy over the {@link RegionGraph}, for answering many queries against the same map and
+ * transports in milliseconds. Nodes are removed from the graph one at a time, least important first, and
+ * shortcut edges are added wherever a shortest path ran through a removed node. A query then only follows
+ * edges towards more important nodes, searching forwards from the start and backwards from the target until
+ * the two searches meet, and the shortcuts on the route found are expanded back into the edges they replace.
+ *
+ * A hierarchy is built with every loaded transport of the enabled kinds, named by its {@link #key}, and is
+ * written to disk so that it only has to be built again when the transports change. Routes cost the same as
+ * on the region graph, but may use transports whose requirements are not met. A hierarchy built to avoid the
+ * Wilderness never steps into it from outside, and is only used for targets outside it.
+ */
+public class ContractionHierarchy {
+    private static final int MAGIC = 0x53504348; // "SPCH"
+    private static final int VERSION = 1;
+    private static final int NONE = -1;
+    /** Witness searches give up after this many nodes, adding a shortcut that might not be needed */
+    private static final int WITNESS_SETTLED_LIMIT = 50;
+
+    @Getter
+    private final String key;
+    private final int[] positions;
+    private final IntIntHashMap indices;
+    private final Edges upward;
+    private final Edges downward;
+
+    private ContractionHierarchy(String key, int[] positions, Edges upward, Edges downward) {
+        this.key = key;
+        this.positions = positions;
+        this.upward = upward;
+        this.downward = downward;
+        this.indices = new IntIntHashMap(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            indices.put(positions[i], i);
+        }
+    }
+
+    /**
+     * The key of the hierarchy for the transport kinds named by the {@link LandmarkTable#key landmark key},
+     * either avoiding the Wilderness or not.
+     */
+    public static String key(String transportKey, boolean avoidWilderness) {
+        return transportKey + "w" + (avoidWilderness ? 1 : 0);
+    }
+
+    /**
+     * Loads the hierarchy for the transport kinds from the cache directory, building and storing it first
+     * if it has not been cached for the current transports yet.
+     */
+    public static ContractionHierarchy load(File directory, String key, CollisionMap map,
+                                            Map<WorldPoint, List<Transport>> transports, boolean avoidWilderness) {
+        File file = new File(directory, "hierarchy-" + key + "-" + Integer.toHexString(LandmarkTable.transportHash(transports)) + ".bin");
+        if (file.isFile()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                ContractionHierarchy hierarchy = read(in);
+                if (key.equals(hierarchy.key)) {
+                    return hierarchy;
+                }
+            } catch (IOException ignored) {
+                // An unreadable cache file is replaced below
+            }
+        }
+
+        ContractionHierarchy hierarchy = build(new RegionGraph(map, transports, avoidWilderness), transport -> true, key);
+        if (directory.isDirectory() || directory.mkdirs()) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                hierarchy.write(out);
+            } catch (IOException ignored) {
+                // Without a cache file the hierarchy is built again next time
+            }
+        }
+        return hierarchy;
+    }
+
+    public static ContractionHierarchy build(RegionGraph graph, Predicate<Transport> usable, String key) {
+        int[] positions = graph.getAllNodes();
+        int count = positions.length;
+        IntIntHashMap indices = new IntIntHashMap(count);
+        for (int i = 0; i < count; i++) {
+            indices.put(positions[i], i);
+        }
+
+        Contraction contraction = new Contraction(count);
+        NeighborList neighbors = new NeighborList();
+        for (int i = 0; i < count; i++) {
+            graph.getNeighbors(positions[i], usable, neighbors);
+            for (int j = 0; j < neighbors.size(); j++) {
+                int neighbor = indices.get(neighbors.getPosition(j), NONE);
+                if (neighbor != NONE && neighbor != i) {
+                    contraction.addEdge(i, neighbor, neighbors.getCost(j), NONE);
+                }
+            }
+        }
+
+        contraction.contractAll();
+        return new ContractionHierarchy(key, positions, contraction.upward.build(), contraction.downward.build());
+    }
+
+    /**
+     * The cheapest route from any of the sources to any of the targets, each with the cost of reaching the
+     * source or of leaving the target. Positions that are not nodes of the hierarchy are ignored.
+     *
+     * @return the nodes along the route and the cost of reaching each of them, or null if there is none
+     */
+    public Route route(int[] sources, int[] sourceCosts, int[] targets, int[] targetCosts) {
+        Search forward = new Search(upward);
+        Search backward = new Search(downward);
+        for (int i = 0; i < sources.length; i++) {
+            int node = indices.get(sources[i], NONE);
+            if (node != NONE && sourceCosts[i] >= 0) {
+                forward.relax(node, sourceCosts[i], NONE, NONE);
+            }
+        }
+        for (int i = 0; i < targets.length; i++) {
+            int node = indices.get(targets[i], NONE);
+            if (node != NONE && targetCosts[i] >= 0) {
+                backward.relax(node, targetCosts[i], NONE, NONE);
+            }
+        }
+
+        int bestCost = Integer.MAX_VALUE;
+        int meeting = NONE;
+        while (true) {
+            boolean forwardDone = forward.boundary.isEmpty() || forward.boundary.peekPriority() >= bestCost;
+            boolean backwardDone = backward.boundary.isEmpty() || backward.boundary.peekPriority() >= bestCost;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+
+            Search search = forwardDone ? backward : backwardDone ? forward :
+                forward.boundary.peekPriority() <= backward.boundary.peekPriority() ? forward : backward;
+            Search other = search == forward ? backward : forward;
+            int node = search.poll();
+            if (node == NONE) {
+                continue;
+            }
+
+            int otherCost = other.costs.get(node, Integer.MAX_VALUE);
+            int cost = search.costs.get(node, Integer.MAX_VALUE);
+            if (otherCost != Integer.MAX_VALUE && cost + otherCost < bestCost) {
+                bestCost = cost + otherCost;
+                meeting = node;
+            }
+            search.expand(node, cost);
+        }
+
+        if (meeting == NONE) {
+            return null;
+        }
+
+        Route route = new Route(bestCost);
+        route.add(positions[meeting], forward.costs.get(meeting, 0));
+        for (int node = meeting; forward.parents.get(node, NONE) != NONE; node = forward.parents.get(node, NONE)) {
+            int edge = forward.edgesTaken.get(node, NONE);
+            int parent = forward.parents.get(node, NONE);
+            unpack(parent, node, upward.middles[edge], forward.costs.get(parent, 0), route, true);
+        }
+        route.reverse();
+
+        int cost = forward.costs.get(meeting, 0);
+        for (int node = meeting; backward.parents.get(node, NONE) != NONE; node = backward.parents.get(node, NONE)) {
+            int edge = backward.edgesTaken.get(node, NONE);
+            int next = backward.parents.get(node, NONE);
+            cost = unpack(node, next, downward.middles[edge], cost, route, false);
+        }
+        return route;
+    }
+
+    /**
+     * Adds the original edges a shortcut from one node to another replaces to the route. Forward parts of the
+     * route are collected from the end, so their nodes are added in reverse, each with the cost of reaching it.
+     *
+     * @return the cost at the end of the shortcut
+     */
+    private int unpack(int from, int to, int middle, int cost, Route route, boolean reversed) {
+        if (middle == NONE) {
+            int edgeCost = edgeCost(from, to);
+            if (reversed) {
+                route.add(positions[from], cost);
+            } else {
+                route.add(positions[to], cost + edgeCost);
+            }
+            return cost + edgeCost;
+        }
+
+        // Both halves of a shortcut are stored at its middle node, which ranks below both ends
+        int first = downward.find(middle, from);
+        int second = upward.find(middle, to);
+        if (reversed) {
+            int middleCost = cost + downward.costs[first];
+            unpack(middle, to, upward.middles[second], middleCost, route, true);
+            unpack(from, middle, downward.middles[first], cost, route, true);
+            return middleCost + upward.costs[second];
+        }
+        int middleCost = unpack(from, middle, downward.middles[first], cost, route, false);
+        return unpack(middle, to, upward.middles[second], middleCost, route, false);
+    }
+
+    private int edgeCost(int from, int to) {
+        int edge = upward.find(from, to);
+        return edge != NONE ? upward.costs[edge] : downward.costs[downward.find(to, from)];
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(key);
+        writeInts(data, positions);
+        for (Edges edges : new Edges[]{upward, downward}) {
+            writeInts(data, edges.starts);
+            writeInts(data, edges.targets);
+            writeInts(data, edges.costs);
+            writeInts(data, edges.middles);
+        }
+        data.flush();
+    }
+
+    public static ContractionHierarchy read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Unsupported contraction hierarchy");
+        }
+
+        String key = data.readUTF();
+        int[] positions = readInts(data);
+        Edges[] edges = new Edges[2];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new Edges(readInts(data), readInts(data), readInts(data), readInts(data));
+        }
+        return new ContractionHierarchy(key, positions, edges[0], edges[1]);
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        data.writeInt(values.length);
+        for (int value : values) {
+            data.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream data) throws IOException {
+        int[] values = new int[data.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * The nodes along a route, each with the cost of reaching it, and the cost including leaving the last node.
+     */
+    public static class Route {
+        private int[] positions = new int[64];
+        private int[] costs = new int[64];
+        private int size;
+        @Getter
+        private final int totalCost;
+
+        private Route(int totalCost) {
+            this.totalCost = totalCost;
+        }
+
+        private void add(int position, int cost) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+                costs = Arrays.copyOf(costs, size << 1);
+            }
+            positions[size] = position;
+            costs[size] = cost;
+            size++;
+        }
+
+        private void reverse() {
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int position = positions[i];
+                positions[i] = positions[j];
+                positions[j] = position;
+                int cost = costs[i];
+                costs[i] = costs[j];
+                costs[j] = cost;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getPosition(int i) {
+            return positions[i];
+        }
+
+        public int getCost(int i) {
+            return costs[i];
+        }
+    }
+
+    /**
+     * Edges towards more important nodes in compressed rows: the edges of node i are at starts[i] to starts[i + 1].
+     * Upward edges lead from the node, downward edges lead into it and are followed backwards. A shortcut has the
+     * node it passes through as its middle, original edges have none.
+     */
+    private static class Edges {
+        private final int[] starts;
+        private final int[] targets;
+        private final int[] costs;
+        private final int[] middles;
+
+        private Edges(int[] starts, int[] targets, int[] costs, int[] middles) {
+            this.starts = starts;
+            this.targets = targets;
+            this.costs = costs;
+            this.middles = middles;
+        }
+
+        private int find(int node, int target) {
+            int best = NONE;
+            for (int edge = starts[node]; edge < starts[node + 1]; edge++) {
+                if (targets[edge] == target && (best == NONE || costs[edge] < costs[best])) {
+                    best = edge;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * One side of a query, following the edges towards more important nodes.
+     */
+    private static class Search {
+        private final Edges edges;
+        private final IntIntHashMap costs = new IntIntHashMap(256);
+        private final IntIntHashMap parents = new IntIntHashMap(256);
+        /** The edge each node was reached along, stored at its parent */
+        private final IntIntHashMap edgesTaken = new IntIntHashMap(256);
+        private final NodeHeap boundary = new NodeHeap(256);
+
+        private Search(Edges edges) {
+            this.edges = edges;
+        }
+
+        private void relax(int node, int cost, int parent, int edge) {
+            if (cost < costs.get(node, Integer.MAX_VALUE)) {
+                costs.put(node, cost);
+                parents.put(node, parent);
+                edgesTaken.put(node, edge);
+                boundary.add(node, cost);
+            }
+        }
+
+        /**
+         * The next node to expand, or NONE if the one taken off the boundary was reached more cheaply since.
+         */
+        private int poll() {
+            long priority = boundary.peekPriority();
+            int node = boundary.poll();
+            return priority == costs.get(node, Integer.MAX_VALUE) ? node : NONE;
+        }
+
+        private void expand(int node, int cost) {
+            for (int edge = edges.starts[node]; edge < edges.starts[node + 1]; edge++) {
+                relax(edges.targets[edge], cost + edges.costs[edge], node, edge);
+            }
+        }
+    }
+
+    /**
+     * The graph while nodes are contracted, with the edges of each node in both directions.
+     */
+    private static class Contraction {
+        private final int count;
+        private final AdjacencyList out;
+        private final AdjacencyList in;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+        private final EdgeListBuilder upward;
+        private final EdgeListBuilder downward;
+
+        private final int[] witnessCosts;
+        private final int[] touched;
+        private int touchedCount;
+        private final NodeHeap witnessBoundary = new NodeHeap(256);
+        private final NeighborList shortcuts = new NeighborList();
+        private final NeighborList shortcutSources = new NeighborList();
+
+        private Contraction(int count) {
+            this.count = count;
+            out = new AdjacencyList(count);
+            in = new AdjacencyList(count);
+            contracted = new boolean[count];
+            contractedNeighbors = new int[count];
+            upward = new EdgeListBuilder(count);
+            downward = new EdgeListBuilder(count);
+            witnessCosts = new int[count];
+            Arrays.fill(witnessCosts, Integer.MAX_VALUE);
+            touched = new int[count];
+        }
+
+        private void addEdge(int from, int to, int cost, int middle) {
+            int existing = out.find(from, to);
+            if (existing != NONE) {
+                if (cost < out.costs[from][existing]) {
+                    out.costs[from][existing] = cost;
+                    out.middles[from][existing] = middle;
+                    int reverse = in.find(to, from);
+                    in.costs[to][reverse] = cost;
+                    in.middles[to][reverse] = middle;
+                }
+                return;
+            }
+            out.add(from, to, cost, middle);
+            in.add(to, from, cost, middle);
+        }
+
+        private void contractAll() {
+            NodeHeap queue = new NodeHeap(count);
+            for (int node = 0; node < count; node++) {
+                queue.add(node, priority(node));
+            }
+
+            while (!queue.isEmpty()) {
+                long priority = queue.peekPriority();
+                int node = queue.poll();
+                // Priorities change as neighbours are contracted, so they are checked again before contracting
+                long current = priority(node);
+                if (current > priority && !queue.isEmpty() && current > queue.peekPriority()) {
+                    queue.add(node, current);
+                    continue;
+                }
+                // The shortcuts found for the priority are still current
+                contract(node);
+            }
+        }
+
+        /**
+         * The edge difference of contracting the node, plus the number of its contracted neighbours to contract
+         * evenly across the graph.
+         */
+        private long priority(int node) {
+            findShortcuts(node);
+            int degree = 0;
+            for (int i = 0; i < in.sizes[node]; i++) {
+                degree += contracted[in.targets[node][i]] ? 0 : 1;
+            }
+            for (int i = 0; i < out.sizes[node]; i++) {
+                degree += contracted[out.targets[node][i]] ? 0 : 1;
+            }
+            return shortcuts.size() - degree + contractedNeighbors[node];
+        }
+
+        private void contract(int node) {
+            for (int i = 0; i < shortcuts.size(); i++) {
+                addEdge(shortcutSources.getPosition(i), shortcuts.getPosition(i), shortcuts.getCost(i), node);
+            }
+
+            contracted[node] = true;
+            for (int i = 0; i < out.sizes[node]; i++) {
+                int neighbor = out.targets[node][i];
+                if (!contracted[neighbor]) {
+                    upward.add(node, neighbor, out.costs[node][i], out.middles[node][i]);
+                    contractedNeighbors[neighbor]++;
+                }
+            }
+            for (int i = 0; i < in.sizes[node]; i++) {
+                int neighbor = in.targets[node][i];
+                if (!contracted[neighbor]) {
+                    downward.add(node, neighbor, in.costs[node][i], in.middles[node][i]);
+                    contractedNeighbors[neighbor]++;
+                }
+            }
+        }
+
+        /**
+         * Collects the shortcuts needed when the node is contracted: for each pair of an incoming and an outgoing
+         * edge, unless a witness path avoiding the node is at least as cheap.
+         */
+        private void findShortcuts(int node) {
+            shortcuts.clear();
+            shortcutSources.clear();
+
+            int maximumOut = 0;
+            for (int i = 0; i < out.sizes[node]; i++) {
+                if (!contracted[out.targets[node][i]]) {
+                    maximumOut = Math.max(maximumOut, out.costs[node][i]);
+                }
+            }
+
+            for (int i = 0; i < in.sizes[node]; i++) {
+                int source = in.targets[node][i];
+                if (contracted[source]) {
+                    continue;
+                }
+                int inCost = in.costs[node][i];
+                witnessSearch(source, node, inCost + maximumOut);
+                for (int j = 0; j < out.sizes[node]; j++) {
+                    int target = out.targets[node][j];
+                    if (contracted[target] || target == source) {
+                        continue;
+                    }
+                    int cost = inCost + out.costs[node][j];
+                    if (witnessCosts[target] > cost) {
+                        shortcutSources.add(source, 0);
+                        shortcuts.add(target, cost);
+                    }
+                }
+                resetWitnessSearch();
+            }
+        }
+
+        private void witnessSearch(int source, int excluded, int maximumCost) {
+            witnessCosts[source] = 0;
+            touched[touchedCount++] = source;
+            witnessBoundary.add(source, 0);
+            int settled = 0;
+            while (!witnessBoundary.isEmpty() && settled < WITNESS_SETTLED_LIMIT) {
+                long priority = witnessBoundary.peekPriority();
+                int node = witnessBoundary.poll();
+                if (priority != witnessCosts[node]) {
+                    continue;
+                }
+                if (priority > maximumCost) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < out.sizes[node]; i++) {
+                    int neighbor = out.targets[node][i];
+                    if (contracted[neighbor] || neighbor == excluded) {
+                        continue;
+                    }
+                    int cost = (int) priority + out.costs[node][i];
+                    if (cost < witnessCosts[neighbor]) {
+                        if (witnessCosts[neighbor] == Integer.MAX_VALUE) {
+                            touched[touchedCount++] = neighbor;
+                        }
+                        witnessCosts[neighbor] = cost;
+                        witnessBoundary.add(neighbor, cost);
+                    }
+                }
+            }
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < touchedCount; i++) {
+                witnessCosts[touched[i]] = Integer.MAX_VALUE;
+            }
+            touchedCount = 0;
+            while (!witnessBoundary.isEmpty()) {
+                witnessBoundary.poll();
+            }
+        }
+    }
+
+    /**
+     * Growable edge lists of every node, with the other end, cost and middle of each edge.
+     */
+    private static class AdjacencyList {
+        private final int[][] targets;
+        private final int[][] costs;
+        private final int[][] middles;
+        private final int[] sizes;
+
+        private AdjacencyList(int count) {
+            targets = new int[count][];
+            costs = new int[count][];
+            middles = new int[count][];
+            sizes = new int[count];
+            for (int i = 0; i < count; i++) {
+                targets[i] = new int[4];
+                costs[i] = new int[4];
+                middles[i] = new int[4];
+            }
+        }
+
+        private int find(int node, int target) {
+            for (int i = 0; i < sizes[node]; i++) {
+                if (targets[node][i] == target) {
+                    return i;
+                }
+            }
+            return NONE;
+        }
+
+        private void add(int node, int target, int cost, int middle) {
+            int size = sizes[node];
+            if (size == targets[node].length) {
+                targets[node] = Arrays.copyOf(targets[node], size << 1);
+                costs[node] = Arrays.copyOf(costs[node], size << 1);
+                middles[node] = Arrays.copyOf(middles[node], size << 1);
+            }
+            targets[node][size] = target;
+            costs[node][size] = cost;
+            middles[node][size] = middle;
+            sizes[node]++;
+        }
+    }
+
+    /**
+     * Collects the final edges of each node, to be packed into compressed rows.
+     */
+    private static class EdgeListBuilder {
+        private final AdjacencyList edges;
+
+        private EdgeListBuilder(int count) {
+            edges = new AdjacencyList(count);
+        }
+
+        private void add(int node, int target, int cost, int middle) {
+            edges.add(node, target, cost, middle);
+        }
+
+        private Edges build() {
+            int count = edges.sizes.length;
+            int[] starts = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                starts[i + 1] = starts[i] + edges.sizes[i];
+            }
+            int[] targets = new int[starts[count]];
+            int[] costs = new int[starts[count]];
+            int[] middles = new int[starts[count]];
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(edges.targets[i], 0, targets, starts[i], edges.sizes[i]);
+                System.arraycopy(edges.costs[i], 0, costs, starts[i], edges.sizes[i]);
+                System.arraycopy(edges.middles[i], 0, middles, starts[i], edges.sizes[i]);
+            }
+            return new Edges(starts, targets, costs, middles);
+        }
+    }
+}
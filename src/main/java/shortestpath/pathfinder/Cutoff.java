@@ -0,0 +1,57 @@
+package shortestpath.pathfinder;
+
+import java.time.Duration;
+
+/**
+ * Decides when a search gives up: once the calculation cutoff has passed without progress towards the target,
+ * or once it has expanded its budget of nodes. The clock is read with {@link System#nanoTime()} only every
+ * {@link #CLOCK_INTERVAL} expansions rather than for every node, so progress made in between moves the deadline
+ * on from the next reading. The budget does not depend on the clock, so a search limited by it always stops at
+ * the same node.
+ */
+class Cutoff {
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final long cutoffNanos;
+    private final int budget;
+    private long deadline;
+    private boolean progressed;
+    private int expansions;
+
+    /**
+     * @param budget the number of nodes the search may expand, or {@link Integer#MAX_VALUE} for no limit
+     */
+    Cutoff(Duration calculationCutoff, int budget) {
+        this.cutoffNanos = calculationCutoff.toNanos();
+        this.budget = budget;
+        this.deadline = System.nanoTime() + cutoffNanos;
+    }
+
+    /**
+     * Notes that the search got closer to its target, so it may go on for another calculation cutoff.
+     */
+    void progress() {
+        progressed = true;
+    }
+
+    /**
+     * Whether the search should stop instead of expanding another node, counting the expansion if not.
+     */
+    boolean isReached() {
+        if (expansions == budget) {
+            return true;
+        }
+        expansions++;
+        if (expansions % CLOCK_INTERVAL != 0) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        if (progressed) {
+            progressed = false;
+            deadline = now + cutoffNanos;
+            return false;
+        }
+        return now - deadline > 0;
+    }
+}
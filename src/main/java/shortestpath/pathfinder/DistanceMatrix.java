@@ -0,0 +1,278 @@
+package shortestpath.pathfinder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * The costs in ticks of the shortest paths between every pair of a list of tiles, for planning a route past
+ * several stops. Each row is a single search from its tile that runs until every other tile is reached, and the
+ * rows are searched in parallel on a small fork-join pool of their own, so that they neither hold up nor wait for
+ * other users of the common pool. The collision map and the compiled transports are only read during the searches,
+ * so every worker shares them without locking; each row has a boundary and costs of its own.
+ *
+ * Costs are not symmetric, as transports only go one way. A row stops once it has run for the calculation cutoff
+ * in total, however many tiles it has reached meanwhile, once it has expanded the config's budget of nodes, or
+ * once the search it is for is cancelled, leaving the tiles it has not reached {@link #UNREACHABLE}. The costs
+ * between tiles that an earlier
+ * matrix for the same config version already has are taken from it instead of being searched again.
+ */
+public class DistanceMatrix {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int TELEPORT_HUB = WorldPointUtil.packWorldPoint(Transport.TELEPORT_HUB);
+    /** Transports are compiled for the config in advance, so none of them has to be filtered out */
+    private static final Predicate<Transport> ALL_TRANSPORTS = transport -> true;
+    private static final int UNKNOWN = -1;
+    /** Rows are searched by at most this many threads, leaving a core for the client */
+    private static final int MAXIMUM_PARALLELISM = 4;
+    private static ForkJoinPool rowPool;
+
+    private final PathfinderConfig config;
+    private final TransportIndex transportsByOrigin;
+    private final Duration calculationCutoff;
+    private final int expansionBudget;
+    private final int version;
+    private final int[] points;
+    /** The first index of every tile */
+    private final IntIntHashMap indices;
+    private final int[] costs;
+    private final DistanceMatrix previous;
+    private final BooleanSupplier cancelled;
+
+    private DistanceMatrix(PathfinderConfig config, int[] points, DistanceMatrix previous, BooleanSupplier cancelled) {
+        this.config = config;
+        // Every row works on the same compiled transports, even if the config changes meanwhile
+        this.transportsByOrigin = config.getUsableTransportsByOrigin();
+        this.calculationCutoff = config.getCalculationCutoff();
+        this.expansionBudget = config.getExpansionBudget();
+        this.version = config.getVersion();
+        this.points = points;
+        this.indices = new IntIntHashMap(points.length * 2);
+        for (int i = points.length - 1; i >= 0; i--) {
+            indices.put(points[i], i);
+        }
+        this.costs = new int[points.length * points.length];
+        this.previous = previous != null && previous.version == version ? previous : null;
+        this.cancelled = cancelled;
+    }
+
+    private DistanceMatrix(int[][] costs) {
+        this.config = null;
+        this.transportsByOrigin = null;
+        this.calculationCutoff = null;
+        this.expansionBudget = 0;
+        this.version = 0;
+        // No tile is known, so the costs are never taken by a later matrix
+        this.points = new int[costs.length];
+        this.indices = new IntIntHashMap(1);
+        this.costs = new int[costs.length * costs.length];
+        for (int i = 0; i < costs.length; i++) {
+            System.arraycopy(costs[i], 0, this.costs, i * costs.length, costs.length);
+        }
+        this.previous = null;
+        this.cancelled = () -> true;
+    }
+
+    /**
+     * A matrix of the given costs by row and column, without tiles or searches behind them.
+     */
+    public static DistanceMatrix of(int[][] costs) {
+        return new DistanceMatrix(costs);
+    }
+
+    /**
+     * Computes the costs between every pair of the tiles.
+     */
+    public static DistanceMatrix compute(PathfinderConfig config, List<WorldPoint> points) {
+        return compute(config, points, null, () -> false);
+    }
+
+    /**
+     * Computes the costs between every pair of the tiles, taking the costs that the previous matrix has, which
+     * may be null. Every row stops early once the cancellation check is true, leaving the matrix incomplete.
+     */
+    public static DistanceMatrix compute(PathfinderConfig config, List<WorldPoint> points, DistanceMatrix previous,
+                                         BooleanSupplier cancelled) {
+        return compute(config, points, previous, cancelled, rowPool());
+    }
+
+    /**
+     * Computes the costs between every pair of the tiles on the given pool, returning once every row is done.
+     * The config is used as of its last refresh.
+     */
+    public static DistanceMatrix compute(PathfinderConfig config, List<WorldPoint> points, DistanceMatrix previous,
+                                         BooleanSupplier cancelled, ForkJoinPool pool) {
+        int[] packedPoints = new int[points.size()];
+        for (int i = 0; i < packedPoints.length; i++) {
+            packedPoints[i] = WorldPointUtil.packWorldPoint(points.get(i));
+        }
+        DistanceMatrix matrix = new DistanceMatrix(config, packedPoints, previous, cancelled);
+        if (packedPoints.length > 0) {
+            pool.invoke(matrix.new Rows(0, packedPoints.length));
+        }
+        return matrix;
+    }
+
+    /**
+     * The pool the rows are searched on, which is only started by the first tour. Its threads are daemons, so
+     * it never keeps the client from exiting, and end themselves once they have been idle for a while.
+     */
+    private static synchronized ForkJoinPool rowPool() {
+        if (rowPool == null) {
+            int parallelism = Math.max(1, Math.min(MAXIMUM_PARALLELISM, Runtime.getRuntime().availableProcessors() - 1));
+            rowPool = new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("shortest-path-distances-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+        return rowPool;
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * The cost of the shortest path from the tile at one index to the tile at another, or {@link #UNREACHABLE}.
+     */
+    public int getCost(int from, int to) {
+        return costs[from * points.length + to];
+    }
+
+    /**
+     * The cost of the shortest path between two packed tiles, if both are in the matrix, or -1.
+     */
+    private int getTileCost(int packedFrom, int packedTo) {
+        int from = indices.get(packedFrom, UNKNOWN);
+        int to = indices.get(packedTo, UNKNOWN);
+        return from == UNKNOWN || to == UNKNOWN ? UNKNOWN : getCost(from, to);
+    }
+
+    private class Rows extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Rows(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            if (to - from == 1) {
+                searchRow(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Rows(from, middle), new Rows(middle, to));
+        }
+    }
+
+    /**
+     * Searches from the tile of the row until every other tile is reached that the previous matrix does not
+     * have. Without a single target there is no heuristic, so tiles are expanded by their cost alone.
+     */
+    private void searchRow(int row) {
+        int offset = row * points.length;
+        int source = points[row];
+        IntIntHashMap targets = new IntIntHashMap(points.length * 2);
+        int remaining = 0;
+        for (int i = 0; i < points.length; i++) {
+            int known = points[i] == source ? 0 : previous == null ? UNKNOWN : previous.getTileCost(source, points[i]);
+            costs[offset + i] = known == UNKNOWN ? UNREACHABLE : known;
+            if (known == UNKNOWN) {
+                targets.put(points[i], 1);
+                remaining++;
+            }
+        }
+        if (remaining == 0) {
+            return;
+        }
+        int wildernessTarget = wildernessTarget(row);
+
+        BucketQueue boundary = new BucketQueue();
+        IntIntHashMap tileCosts = new IntIntHashMap(1 << 16);
+        NeighborList neighbors = new NeighborList();
+        boundary.add(source, 0);
+        tileCosts.put(source, 0);
+        if (config.canTeleportFrom(source)) {
+            boundary.add(TELEPORT_HUB, 0);
+            tileCosts.put(TELEPORT_HUB, 0);
+        }
+
+        // Reaching a tile does not extend the cutoff, as a row with many tiles would otherwise never time out
+        Cutoff cutoff = new Cutoff(calculationCutoff, expansionBudget <= 0 ? Integer.MAX_VALUE : expansionBudget);
+        while (remaining > 0 && !boundary.isEmpty() && !cancelled.getAsBoolean()) {
+            int cost = (int) boundary.peekPriority();
+            int position = boundary.poll();
+            if (cost > tileCosts.get(position, Integer.MAX_VALUE)) {
+                continue;
+            }
+
+            if (targets.get(position, 0) != 0) {
+                targets.put(position, 0);
+                remaining -= settle(row, position, cost);
+            }
+            if (cutoff.isReached()) {
+                break;
+            }
+
+            config.getMap().getNeighbors(position, transportsByOrigin, ALL_TRANSPORTS, neighbors);
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                if (config.avoidWilderness(position, neighbor, wildernessTarget)) {
+                    continue;
+                }
+                int neighborCost = cost + neighbors.getCost(i);
+                if (neighborCost < tileCosts.get(neighbor, Integer.MAX_VALUE)) {
+                    tileCosts.put(neighbor, neighborCost);
+                    boundary.add(neighbor, neighborCost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the cost of every other column of the row whose tile is the given one, returning how many there are.
+     * The same tile may be listed more than once.
+     */
+    private int settle(int row, int position, int cost) {
+        int settled = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (i != row && points[i] == position && costs[row * points.length + i] == UNREACHABLE) {
+                costs[row * points.length + i] = cost;
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * The tile deciding whether steps into the Wilderness are avoided on the searches of a row. A tile inside
+     * the Wilderness allows them, as it could not be reached otherwise.
+     */
+    private int wildernessTarget(int row) {
+        int tile = points[row];
+        for (int i = 0; i < points.length; i++) {
+            if (i != row) {
+                tile = points[i];
+                if (!config.isAvoidingWilderness(tile)) {
+                    break;
+                }
+            }
+        }
+        return tile;
+    }
+}
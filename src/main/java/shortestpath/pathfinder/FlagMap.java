@@ -1,11 +1,15 @@
 package shortestpath.pathfinder;
 
 import java.nio.ByteBuffer;
-import java.util.BitSet;
 
 public class FlagMap {
     public static final int PLANE_COUNT = 4;
-    protected final BitSet flags;
+    static final int HEADER_SIZE = 16;
+    /**
+     * Flag bits in little-endian bit order, as written by {@link java.util.BitSet#toByteArray()}.
+     * Bytes past the end of the buffer are all zero.
+     */
+    protected final ByteBuffer flags;
     public final int minX;
     public final int minY;
     public final int maxX;
@@ -13,6 +17,16 @@ public class FlagMap {
     private final int width;
     private final int height;
     private final int flagCount;
+    private final int flagBytes;
+
+    /**
+     * Per-tile traversable directions derived from the flags by {@link CollisionMap}, built on first use
+     */
+    volatile byte[] traversable;
+    /**
+     * The count of cache lookups of the {@link SplitFlagMap} when the region was last marked as used in its cache
+     */
+    int cacheLookups = -1;
 
     public FlagMap(int minX, int minY, int maxX, int maxY, int flagCount) {
         this.minX = minX;
@@ -22,29 +36,39 @@ public class FlagMap {
         this.flagCount = flagCount;
         width = (maxX - minX + 1);
         height = (maxY - minY + 1);
-        flags = new BitSet(width * height * PLANE_COUNT * flagCount);
+        flags = ByteBuffer.allocate((width * height * PLANE_COUNT * flagCount + 7) / 8);
+        flagBytes = flags.limit();
     }
 
     public FlagMap(byte[] bytes, int flagCount) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        minX = buffer.getInt();
-        minY = buffer.getInt();
-        maxX = buffer.getInt();
-        maxY = buffer.getInt();
+        this(ByteBuffer.wrap(bytes), flagCount);
+    }
+
+    /**
+     * Reads a region without copying its flags, so a slice of a file loaded outside the heap stays there.
+     */
+    public FlagMap(ByteBuffer buffer, int flagCount) {
+        minX = buffer.getInt(0);
+        minY = buffer.getInt(4);
+        maxX = buffer.getInt(8);
+        maxY = buffer.getInt(12);
         this.flagCount = flagCount;
         width = (maxX - minX + 1);
         height = (maxY - minY + 1);
-        flags = BitSet.valueOf(buffer);
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(HEADER_SIZE);
+        flags = duplicate.slice();
+        flagBytes = flags.limit();
     }
 
     public byte[] toBytes() {
-        byte[] bytes = new byte[16 + flags.size()];
+        byte[] bytes = new byte[HEADER_SIZE + flags.capacity()];
         ByteBuffer buffer = ByteBuffer.wrap(bytes);
         buffer.putInt(minX);
         buffer.putInt(minY);
         buffer.putInt(maxX);
         buffer.putInt(maxY);
-        buffer.put(flags.toByteArray());
+        buffer.put(flags.duplicate());
         return bytes;
     }
 
@@ -53,11 +77,32 @@ public class FlagMap {
             return false;
         }
 
-        return flags.get(index(x, y, z, flag));
+        int index = tileIndex(x, y, z) * flagCount + flag;
+        int byteIndex = index >>> 3;
+        return byteIndex < flagBytes && (flags.get(byteIndex) & (1 << (index & 7))) != 0;
     }
 
     public void set(int x, int y, int z, int flag, boolean value) {
-        flags.set(index(x, y, z, flag), value);
+        int index = index(x, y, z, flag);
+        int byteIndex = index >>> 3;
+        int bits = flags.get(byteIndex);
+        flags.put(byteIndex, (byte) (value ? bits | (1 << (index & 7)) : bits & ~(1 << (index & 7))));
+    }
+
+    /**
+     * The number of heap bytes held by this region, not counting flags stored outside the heap.
+     */
+    int heapSize() {
+        int traversableSize = tileCount();
+        return flags.isDirect() ? traversableSize : flags.capacity() + traversableSize;
+    }
+
+    int tileCount() {
+        return width * height * PLANE_COUNT;
+    }
+
+    int tileIndex(int x, int y, int z) {
+        return z * width * height + (y - minY) * width + (x - minX);
     }
 
     private int index(int x, int y, int z, int flag) {
@@ -65,6 +110,6 @@ public class FlagMap {
             throw new IndexOutOfBoundsException(x + " " + y + " " + z);
         }
 
-        return (z * width * height + (y - minY) * width + (x - minX)) * flagCount + flag;
+        return tileIndex(x, y, z) * flagCount + flag;
     }
 }
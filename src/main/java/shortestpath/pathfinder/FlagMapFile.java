@@ -0,0 +1,132 @@
+package shortestpath.pathfinder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Uncompressed file of {@link FlagMap} regions that is loaded outside the heap once and read in place.
+ *
+ * The file starts with a magic number, a format version and the region count, followed by an index entry
+ * of region x, region y, offset and length for every region. The regions follow the index, each stored in
+ * the {@link FlagMap#toBytes()} layout. All integers are big-endian.
+ */
+public class FlagMapFile {
+    private static final int MAGIC = 0x53504d46; // "SPMF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    public static void write(Map<SplitFlagMap.Position, byte[]> regions, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(regions.size());
+
+        int offset = HEADER_SIZE + regions.size() * INDEX_ENTRY_SIZE;
+        for (Map.Entry<SplitFlagMap.Position, byte[]> region : regions.entrySet()) {
+            data.writeInt(region.getKey().x);
+            data.writeInt(region.getKey().y);
+            data.writeInt(offset);
+            data.writeInt(region.getValue().length);
+            offset += region.getValue().length;
+        }
+
+        for (byte[] region : regions.values()) {
+            data.write(region);
+        }
+        data.flush();
+    }
+
+    /**
+     * Splits a file into per-region slices that share the file's buffer.
+     */
+    public static Map<SplitFlagMap.Position, ByteBuffer> read(ByteBuffer file) throws IOException {
+        if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            throw new IOException("Unsupported flag map file");
+        }
+
+        int regionCount = file.getInt(8);
+        Map<SplitFlagMap.Position, ByteBuffer> regions = new HashMap<>(regionCount * 2);
+        for (int i = 0; i < regionCount; i++) {
+            int entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+            int offset = file.getInt(entry + 8);
+            int length = file.getInt(entry + 12);
+
+            ByteBuffer region = file.duplicate();
+            region.position(offset);
+            region.limit(offset + length);
+            regions.put(new SplitFlagMap.Position(file.getInt(entry), file.getInt(entry + 4)), region.slice());
+        }
+        return regions;
+    }
+
+    /**
+     * Memory-maps a resource that is a file. A resource packaged inside a jar cannot be mapped, so it is read
+     * into a direct buffer instead, which keeps its flags off the heap all the same.
+     */
+    public static ByteBuffer load(URL resource) throws IOException {
+        if (resource == null) {
+            throw new FileNotFoundException("Flag map resource not found");
+        }
+
+        if ("file".equals(resource.getProtocol())) {
+            Path path;
+            try {
+                path = Paths.get(resource.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        URLConnection connection = resource.openConnection();
+        long length = connection.getContentLengthLong();
+        try (InputStream in = connection.getInputStream()) {
+            if (length < 0) {
+                byte[] bytes = readAll(in);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+                buffer.put(bytes);
+                buffer.flip();
+                return buffer;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+            ReadableByteChannel channel = Channels.newChannel(in);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Flag map resource ended early");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1 << 16];
+        for (int read = in.read(chunk); read >= 0; read = in.read(chunk)) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
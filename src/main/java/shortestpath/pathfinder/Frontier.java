@@ -0,0 +1,92 @@
+package shortestpath.pathfinder;
+
+import shortestpath.WorldPointUtil;
+
+/**
+ * A search tree grown from a root towards a goal, as one side of a bidirectional search or as a tree rooted
+ * at a target that replanning searches continue. A backward tree follows edges in reverse, so the previous
+ * node of each of its nodes is the next step towards the root.
+ */
+class Frontier {
+    private Heuristic heuristic;
+    private int goal;
+    final boolean backward;
+
+    final NodeTable nodes = new NodeTable(1 << 16);
+    final BucketQueue boundary = new BucketQueue();
+    /** The cheapest node found so far for each position */
+    final IntIntHashMap bestNodes = new IntIntHashMap(1 << 16);
+
+    private int bestDistance = Integer.MAX_VALUE;
+    private long bestHeuristic = Integer.MAX_VALUE;
+
+    Frontier(Heuristic heuristic, int root, int goal, boolean backward) {
+        this.heuristic = heuristic;
+        this.goal = goal;
+        this.backward = backward;
+        relax(root, NodeTable.NONE, 0);
+    }
+
+    /**
+     * Adds a node for the position if the cost improves on the best known one.
+     *
+     * @return the added node, or {@link NodeTable#NONE} if the position was already reached as cheaply
+     */
+    int relax(int position, int previous, int cost) {
+        int best = bestNodes.get(position, NodeTable.NONE);
+        if (best != NodeTable.NONE && nodes.getCost(best) <= cost) {
+            return NodeTable.NONE;
+        }
+
+        int node = nodes.add(position, previous, cost);
+        bestNodes.put(position, node);
+        boundary.add(node, priority(node));
+        return node;
+    }
+
+    private long priority(int node) {
+        return (long) nodes.getCost(node) + heuristic.estimate(nodes.getPosition(node));
+    }
+
+    /**
+     * Continues the search towards another goal. The boundary is reordered by the new heuristic, and a goal
+     * that was already expanded is put back on it, as its cost is only final once it is taken off again.
+     */
+    void retarget(Heuristic heuristic, int goal) {
+        this.heuristic = heuristic;
+        this.goal = goal;
+        bestDistance = Integer.MAX_VALUE;
+        bestHeuristic = Integer.MAX_VALUE;
+        boundary.reorder(node -> bestNodes.get(nodes.getPosition(node), NodeTable.NONE) == node ? priority(node) : -1);
+
+        int reached = bestNodes.get(goal, NodeTable.NONE);
+        if (reached != NodeTable.NONE) {
+            boundary.add(reached, priority(reached));
+        }
+    }
+
+    /**
+     * An estimate of the heap memory used by the tree.
+     */
+    int heapSize() {
+        return nodes.heapSize() + boundary.heapSize() + bestNodes.heapSize();
+    }
+
+    long minimumEstimate() {
+        return boundary.peekPriority();
+    }
+
+    /**
+     * Whether the position is closer to the other end of the search than any position expanded before.
+     */
+    boolean isProgress(int position) {
+        int distance = WorldPointUtil.distanceBetween(position, goal);
+        long distanceHeuristic = distance + WorldPointUtil.distanceBetween(position, goal, 2);
+        if (distanceHeuristic < bestHeuristic || (distanceHeuristic <= bestHeuristic && distance < bestDistance)) {
+            bestDistance = distance;
+            bestHeuristic = distanceHeuristic;
+            return true;
+        }
+        return false;
+    }
+}
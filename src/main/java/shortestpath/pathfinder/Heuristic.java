@@ -0,0 +1,226 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * Admissible lower bound on the remaining cost from a tile to the target.
+ *
+ * The bound is the exact distance in a relaxed graph where walls are ignored, so walking between two tiles on
+ * the same plane costs their Chebyshev distance, while every usable transport keeps its origin, destination
+ * and wait. Transports that only move a single tile on the same plane never beat walking and are left out.
+ * Distances to the target are solved once per search over the transport origins, and tiles are then bounded
+ * per bucket of nearby tiles, which keeps the estimate cheap at the price of a slightly looser bound.
+ *
+ * When a {@link LandmarkTable} is loaded for the enabled transports, its bound is used wherever it is tighter,
+ * which mostly helps where walls force long detours. It is cached per bucket alongside the transport bound.
+ *
+ * A reversed heuristic swaps the ends of every transport, bounding the cost of reaching a tile from the
+ * target instead, as needed by the backward half of a bidirectional search. Its target is the start of the
+ * search, which steps onto the {@link Transport#TELEPORT_HUB}, so the hub is put at the target. The landmarks
+ * only bound paths without such a teleport, so then the bound is never more than the transport bound.
+ *
+ * A heuristic for several target areas bounds the cost to the closest of them. Landmarks only bound the cost
+ * to a single tile, so they are not used for it.
+ */
+public class Heuristic {
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int BUCKET_SIZE = LandmarkTable.BUCKET_SIZE;
+    private static final int MAXIMUM_BUCKET_BOUND = 0xFFFF;
+    private static final int MAXIMUM_LANDMARK_BOUND = 0x7FFF;
+    private static final int TELEPORT_HUB = WorldPointUtil.packWorldPoint(Transport.TELEPORT_HUB);
+
+    private final int target;
+    /** The areas of a search to several targets, or null when there is a single target */
+    private final WorldArea[] targetAreas;
+    private final boolean reversed;
+    private final LandmarkTable landmarks;
+    private final WorldPoint[] origins;
+    private final int[] originCosts;
+    /** Whether the reversed target can cast teleports, which the landmark bounds do not account for */
+    private final boolean teleportsFromTarget;
+    private final IntIntHashMap bucketBounds = new IntIntHashMap(256);
+
+    public Heuristic(PathfinderConfig config, WorldPoint target) {
+        this(config, target, false);
+    }
+
+    public Heuristic(PathfinderConfig config, WorldPoint target, boolean reversed) {
+        this(config, target, null, reversed);
+    }
+
+    public Heuristic(PathfinderConfig config, List<WorldArea> targets) {
+        this(config, null, targets.toArray(new WorldArea[0]), false);
+    }
+
+    private Heuristic(PathfinderConfig config, WorldPoint target, WorldArea[] targetAreas, boolean reversed) {
+        this.target = WorldPointUtil.packWorldPoint(target);
+        this.targetAreas = targetAreas;
+        this.reversed = reversed;
+        this.landmarks = targetAreas == null ? config.getLandmarks() : null;
+
+        Map<WorldPoint, List<Transport>> transports = new HashMap<>();
+        boolean teleports = false;
+        for (List<Transport> origin : config.getTransports().values()) {
+            for (Transport transport : origin) {
+                if (isTeleport(transport) && config.getTransportFilter().test(transport)) {
+                    WorldPoint start = reversed ? transport.getDestination() : transport.getOrigin();
+                    transports.computeIfAbsent(start, k -> new ArrayList<>()).add(transport);
+                    teleports |= reversed && transport.getOrigin().equals(Transport.TELEPORT_HUB);
+                }
+            }
+        }
+        teleportsFromTarget = teleports;
+
+        origins = transports.keySet().toArray(new WorldPoint[0]);
+        originCosts = solve(transports);
+    }
+
+    /**
+     * Computes, for every origin, the cheapest relaxed cost to the target when taking one of its transports.
+     * The relaxed graph is complete between origins, so a dense Dijkstra without a priority queue is used.
+     */
+    private int[] solve(Map<WorldPoint, List<Transport>> transports) {
+        int n = origins.length;
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + transports.get(origins[i]).size();
+        }
+
+        int[] destinationX = new int[offsets[n]];
+        int[] destinationY = new int[offsets[n]];
+        int[] destinationPlane = new int[offsets[n]];
+        int[] waits = new int[offsets[n]];
+        int[] costs = new int[n];
+        boolean[] settled = new boolean[n];
+
+        for (int i = 0; i < n; i++) {
+            costs[i] = INFINITY;
+            int j = offsets[i];
+            for (Transport transport : transports.get(origins[i])) {
+                WorldPoint destination = reversed ? transport.getOrigin() : transport.getDestination();
+                if (destination.equals(Transport.TELEPORT_HUB)) {
+                    destination = WorldPointUtil.unpackWorldPoint(target);
+                }
+                destinationX[j] = destination.getX();
+                destinationY[j] = destination.getY();
+                destinationPlane[j] = destination.getPlane();
+                waits[j] = transport.getWait();
+                costs[i] = Math.min(costs[i], waits[j] + walkingBound(WorldPointUtil.packWorldPoint(destination)));
+                j++;
+            }
+        }
+
+        for (int settledCount = 0; settledCount < n; settledCount++) {
+            int next = -1;
+            for (int i = 0; i < n; i++) {
+                if (!settled[i] && (next == -1 || costs[i] < costs[next])) {
+                    next = i;
+                }
+            }
+            if (costs[next] >= INFINITY) {
+                break;
+            }
+            settled[next] = true;
+
+            int viaX = origins[next].getX();
+            int viaY = origins[next].getY();
+            int viaPlane = origins[next].getPlane();
+            for (int i = 0; i < n; i++) {
+                if (settled[i]) {
+                    continue;
+                }
+                for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                    if (destinationPlane[j] == viaPlane) {
+                        int walk = Math.max(Math.abs(destinationX[j] - viaX), Math.abs(destinationY[j] - viaY));
+                        costs[i] = Math.min(costs[i], waits[j] + walk + costs[next]);
+                    }
+                }
+            }
+        }
+
+        return costs;
+    }
+
+    public int estimate(int position) {
+        if (teleportsFromTarget && position == TELEPORT_HUB) {
+            return 0;
+        }
+        int walk = walkingBound(position);
+        int bounds = bucketBounds(position);
+        int transportBound = bounds & MAXIMUM_BUCKET_BOUND;
+        if (transportBound == MAXIMUM_BUCKET_BOUND) {
+            transportBound = INFINITY;
+        }
+        int estimate = Math.max(Math.min(walk, transportBound), bounds >>> 16);
+        return teleportsFromTarget ? Math.min(estimate, transportBound) : estimate;
+    }
+
+    /**
+     * The transport bound of the bucket in the lower 16 bits, and the landmark bound in the upper bits.
+     */
+    private int bucketBounds(int position) {
+        int bucketX = WorldPointUtil.unpackWorldX(position) / BUCKET_SIZE;
+        int bucketY = WorldPointUtil.unpackWorldY(position) / BUCKET_SIZE;
+        int plane = WorldPointUtil.unpackWorldPlane(position);
+        int key = (bucketX << 18) | (bucketY << 2) | plane;
+
+        int bound = bucketBounds.get(key, -1);
+        if (bound >= 0) {
+            return bound;
+        }
+
+        int minX = bucketX * BUCKET_SIZE;
+        int minY = bucketY * BUCKET_SIZE;
+        int maxX = minX + BUCKET_SIZE - 1;
+        int maxY = minY + BUCKET_SIZE - 1;
+
+        bound = INFINITY;
+        for (int i = 0; i < origins.length; i++) {
+            WorldPoint origin = origins[i];
+            if (origin.getPlane() != plane || originCosts[i] >= INFINITY) {
+                continue;
+            }
+            int dx = Math.max(0, Math.max(minX - origin.getX(), origin.getX() - maxX));
+            int dy = Math.max(0, Math.max(minY - origin.getY(), origin.getY() - maxY));
+            bound = Math.min(bound, Math.max(dx, dy) + originCosts[i]);
+        }
+
+        int landmarkBound = 0;
+        if (landmarks != null) {
+            landmarkBound = reversed ? landmarks.lowerBound(target, position) : landmarks.lowerBound(position, target);
+        }
+
+        bound = (Math.min(landmarkBound, MAXIMUM_LANDMARK_BOUND) << 16) | Math.min(bound, MAXIMUM_BUCKET_BOUND);
+        bucketBounds.put(key, bound);
+        return bound;
+    }
+
+    /**
+     * The cost of walking from the tile to the closest target with walls ignored.
+     */
+    private int walkingBound(int position) {
+        int plane = WorldPointUtil.unpackWorldPlane(position);
+        if (targetAreas == null) {
+            return plane == WorldPointUtil.unpackWorldPlane(target) ? WorldPointUtil.distanceBetween(position, target) : INFINITY;
+        }
+        int bound = INFINITY;
+        for (WorldArea area : targetAreas) {
+            if (area.getPlane() == plane) {
+                bound = Math.min(bound, WorldPointUtil.distanceToArea(position, area));
+            }
+        }
+        return bound;
+    }
+
+    private static boolean isTeleport(Transport transport) {
+        return WorldPointUtil.distanceBetween(transport.getOrigin(), transport.getDestination()) > 1 ||
+            transport.getOrigin().getPlane() != transport.getDestination().getPlane();
+    }
+}
@@ -0,0 +1,252 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * Successors for a jump point search. Walking costs the same in every direction, so in open areas many paths
+ * of equal cost lead to each tile and a plain search adds every one of them. A jump point search instead follows
+ * straight and diagonal lines from each node without adding the tiles on the way, and only stops at tiles where
+ * a wall forces a turn, at transport tiles and at the target. Every tile that is skipped can be reached at least
+ * as cheaply along the lines, so the paths found cost the same as when searching every tile. The lines are
+ * scanned tile by tile through the collision map, which takes most of the time the fewer expansions save.
+ *
+ * Walls are read from the traversable directions of the {@link CollisionMap}, which already require both
+ * cardinal steps of a diagonal step to be free. With that rule only straight lines are forced to turn: when a
+ * side step is possible from a tile but could not be made from the tile before it.
+ */
+class JumpPoints {
+    private static final OrdinalDirection[] DIRECTIONS = OrdinalDirection.values();
+    /** Direction ordinals by {@code (dx + 1) * 3 + dy + 1} */
+    private static final int[] DIRECTION_INDEX = new int[9];
+    /** The direction of nodes that were not reached by walking, which are expanded in every direction */
+    static final int NONE = -1;
+    /**
+     * A diagonal line looks along straight lines from each of its tiles, so its cost grows with the square of
+     * its length. Stopping it after a few steps adds a node but keeps the cost linear.
+     */
+    private static final int MAXIMUM_DIAGONAL_JUMP = 8;
+
+    static {
+        Arrays.fill(DIRECTION_INDEX, NONE);
+        for (OrdinalDirection d : DIRECTIONS) {
+            DIRECTION_INDEX[(d.x + 1) * 3 + d.y + 1] = d.ordinal();
+        }
+    }
+
+    private final PathfinderConfig config;
+    private final CollisionMap map;
+    private final int target;
+    private final boolean avoidingWilderness;
+    private final NeighborList neighbors = new NeighborList();
+
+    /** The direction each node was reached in, by node index */
+    private byte[] directions = new byte[1 << 16];
+    /** The direction of each successor of the last expanded node */
+    private int[] successorDirections = new int[16];
+
+    JumpPoints(PathfinderConfig config, int target) {
+        this.config = config;
+        this.map = config.getMap();
+        this.target = target;
+        this.avoidingWilderness = config.isAvoidingWilderness(target);
+    }
+
+    void setDirection(int node, int direction) {
+        if (node >= directions.length) {
+            directions = Arrays.copyOf(directions, Math.max(node + 1, directions.length << 1));
+        }
+        directions[node] = (byte) direction;
+    }
+
+    /**
+     * The direction the successor was reached in, to be stored with its node.
+     */
+    int getDirection(int successor) {
+        return successorDirections[successor];
+    }
+
+    /**
+     * Fills in the jump points reachable from the node, together with the cost of reaching them. Nodes that
+     * were not reached by walking and nodes on transport tiles are expanded in every direction and along
+     * their transports, other nodes only in the directions that cannot be reached more cheaply without them.
+     */
+    void getSuccessors(int node, NodeTable nodes, NeighborList successors) {
+        int position = nodes.getPosition(node);
+        int direction = directions[node];
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int z = WorldPointUtil.unpackWorldPlane(position);
+
+        successors.clear();
+
+        if (direction == NONE || isForcedTile(position)) {
+            map.getNeighbors(position, config, neighbors);
+            int traversable = map.getTraversable(x, y, z);
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                int walk = walkingDirection(position, neighbor, traversable);
+                if (walk == NONE) {
+                    add(successors, neighbor, neighbors.getCost(i), NONE);
+                } else {
+                    jump(x, y, z, walk, successors);
+                }
+            }
+            return;
+        }
+
+        OrdinalDirection d = DIRECTIONS[direction];
+        if (d.x != 0 && d.y != 0) {
+            jump(x, y, z, direction(d.x, 0), successors);
+            jump(x, y, z, direction(0, d.y), successors);
+            jump(x, y, z, direction, successors);
+            return;
+        }
+
+        jump(x, y, z, direction, successors);
+        for (int side = -1; side <= 1; side += 2) {
+            int sideX = d.y * side;
+            int sideY = d.x * side;
+            if (isForcedSide(x, y, z, d, sideX, sideY)) {
+                jump(x, y, z, direction(sideX, sideY), successors);
+                jump(x, y, z, direction(d.x + sideX, d.y + sideY), successors);
+            }
+        }
+    }
+
+    /**
+     * The walked path to the node, with the tiles between consecutive jump points filled in.
+     */
+    List<WorldPoint> getPath(NodeTable nodes, int node) {
+        List<WorldPoint> path = new ArrayList<>();
+        for (int n = node; n != NodeTable.NONE; n = nodes.getPrevious(n)) {
+            int position = nodes.getPosition(n);
+            if (!Transport.isHub(position)) {
+                path.add(WorldPointUtil.unpackWorldPoint(position));
+            }
+
+            int previous = nodes.getPrevious(n);
+            if (previous == NodeTable.NONE || directions[n] == NONE) {
+                continue;
+            }
+            OrdinalDirection d = DIRECTIONS[directions[n]];
+            int x = WorldPointUtil.unpackWorldX(position);
+            int y = WorldPointUtil.unpackWorldY(position);
+            int z = WorldPointUtil.unpackWorldPlane(position);
+            int steps = WorldPointUtil.distanceBetween(nodes.getPosition(previous), position);
+            for (int i = 1; i < steps; i++) {
+                path.add(new WorldPoint(x - d.x * i, y - d.y * i, z));
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void jump(int x, int y, int z, int direction, NeighborList successors) {
+        OrdinalDirection d = DIRECTIONS[direction];
+        int steps = jump(x, y, z, direction, d.x != 0 && d.y != 0 ? MAXIMUM_DIAGONAL_JUMP : Integer.MAX_VALUE);
+        if (steps > 0) {
+            add(successors, WorldPointUtil.packWorldPoint(x + d.x * steps, y + d.y * steps, z), steps, direction);
+        }
+    }
+
+    /**
+     * The number of steps from the tile to the next jump point in the direction, or 0 if walls end the line
+     * before one is reached. A diagonal line stops at a tile if a straight line from it reaches a jump point.
+     * Any tile on a line can be returned as a jump point, so lines also stop after the given number of steps.
+     */
+    private int jump(int x, int y, int z, int direction, int limit) {
+        OrdinalDirection d = DIRECTIONS[direction];
+        int traversable = map.getTraversable(x, y, z);
+        if ((traversable & (1 << direction)) == 0 || (avoidingWilderness &&
+            config.avoidWilderness(WorldPointUtil.packWorldPoint(x, y, z), WorldPointUtil.packWorldPoint(x + d.x, y + d.y, z), target))) {
+            return 0;
+        }
+
+        boolean diagonal = d.x != 0 && d.y != 0;
+        for (int steps = 1; ; steps++) {
+            int previous = traversable;
+            x += d.x;
+            y += d.y;
+            int position = WorldPointUtil.packWorldPoint(x, y, z);
+            if (position == target || steps == limit || isForcedTile(position)) {
+                return steps;
+            }
+
+            traversable = map.getTraversable(x, y, z);
+            if (diagonal) {
+                if (jump(x, y, z, direction(d.x, 0), limit) > 0 || jump(x, y, z, direction(0, d.y), limit) > 0) {
+                    return steps;
+                }
+            } else if (isForcedSide(x, y, z, d, d.y, d.x, traversable, previous) ||
+                isForcedSide(x, y, z, d, -d.y, -d.x, traversable, previous)) {
+                return steps;
+            }
+
+            // Lines only leave forced tiles, so no later step can cross the edge of the Wilderness
+            if ((traversable & (1 << direction)) == 0) {
+                return 0;
+            }
+        }
+    }
+
+    private boolean isForcedSide(int x, int y, int z, OrdinalDirection d, int sideX, int sideY) {
+        return isForcedSide(x, y, z, d, sideX, sideY, map.getTraversable(x, y, z), map.getTraversable(x - d.x, y - d.y, z));
+    }
+
+    /**
+     * Whether a side step from a tile reached along a straight line leads to tiles that cannot be reached
+     * at least as cheaply from the tile before it without passing the tile.
+     */
+    private boolean isForcedSide(int x, int y, int z, OrdinalDirection d, int sideX, int sideY, int traversable, int previous) {
+        int side = 1 << direction(sideX, sideY);
+        if ((traversable & side) == 0) {
+            return false;
+        }
+        return (previous & side) == 0 || !canMove(x - d.x + sideX, y - d.y + sideY, z, d.ordinal());
+    }
+
+    /**
+     * Transport tiles, and when avoiding the Wilderness the tiles along its edge, are expanded in every
+     * direction. Their steps are not the same in every direction, so skipping over them could miss a path.
+     */
+    private boolean isForcedTile(int position) {
+        return config.getTransportTiles().containsKey(position) ||
+            (avoidingWilderness && config.isNearWildernessEdge(position));
+    }
+
+    private boolean canMove(int x, int y, int z, int direction) {
+        return (map.getTraversable(x, y, z) & (1 << direction)) != 0;
+    }
+
+    private static int walkingDirection(int position, int neighbor, int traversable) {
+        if (WorldPointUtil.unpackWorldPlane(position) != WorldPointUtil.unpackWorldPlane(neighbor)) {
+            return NONE;
+        }
+        int dx = WorldPointUtil.unpackWorldX(neighbor) - WorldPointUtil.unpackWorldX(position);
+        int dy = WorldPointUtil.unpackWorldY(neighbor) - WorldPointUtil.unpackWorldY(position);
+        if (Math.abs(dx) > 1 || Math.abs(dy) > 1) {
+            return NONE;
+        }
+        int direction = direction(dx, dy);
+        return direction != NONE && (traversable & (1 << direction)) != 0 ? direction : NONE;
+    }
+
+    private static int direction(int dx, int dy) {
+        return DIRECTION_INDEX[(dx + 1) * 3 + dy + 1];
+    }
+
+    private void add(NeighborList successors, int position, int cost, int direction) {
+        int i = successors.size();
+        if (i == successorDirections.length) {
+            successorDirections = Arrays.copyOf(successorDirections, i << 1);
+        }
+        successorDirections[i] = direction;
+        successors.add(position, cost);
+    }
+}
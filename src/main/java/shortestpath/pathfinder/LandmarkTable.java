@@ -0,0 +1,426 @@
+package shortestpath.pathfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.Getter;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * Lower bounds on travel costs from precomputed landmark distances (the ALT technique). For a handful of
+ * landmark tiles the cost from the landmark to every tile and from every tile back to the landmark is known,
+ * and the triangle inequality bounds the cost between any two tiles v and t:
+ * d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L).
+ *
+ * Only the minimum and maximum cost over each bucket of 16 by 16 tiles is kept, which keeps a table at a few
+ * megabytes at the price of a looser bound. Costs are computed with every loaded transport regardless of
+ * skill and quest requirements, so the bounds hold for any player using the same transport kinds.
+ * Landmarks are picked one at a time as the tile furthest from the landmarks picked before.
+ */
+public class LandmarkTable {
+    public static final int BUCKET_SIZE = 16;
+    public static final int DEFAULT_LANDMARK_COUNT = 8;
+    private static final int REGION_SIZE = 64;
+    private static final int BUCKETS_PER_ROW = REGION_SIZE / BUCKET_SIZE;
+    private static final int BUCKETS_PER_PLANE = BUCKETS_PER_ROW * BUCKETS_PER_ROW;
+    private static final int BUCKETS_PER_REGION = BUCKETS_PER_PLANE * FlagMap.PLANE_COUNT;
+    private static final int TILES_PER_REGION = REGION_SIZE * REGION_SIZE * FlagMap.PLANE_COUNT;
+    private static final char UNREACHABLE = Character.MAX_VALUE;
+    private static final int MAGIC = 0x53504c4d; // "SPLM"
+    private static final int VERSION = 1;
+    /** The first landmark is the tile furthest from Lumbridge */
+    private static final WorldPoint SEED = new WorldPoint(3222, 3218, 0);
+
+    @Getter
+    private final String key;
+    private final int[] landmarks;
+    private final int[] regionKeys;
+    private final IntIntHashMap regionIndices;
+    // Indexed by bucket * landmark count + landmark
+    private final char[] fromMin;
+    private final char[] fromMax;
+    private final char[] toMin;
+    private final char[] toMax;
+
+    private LandmarkTable(String key, int[] landmarks, int[] regionKeys,
+                          char[] fromMin, char[] fromMax, char[] toMin, char[] toMax) {
+        this.key = key;
+        this.landmarks = landmarks;
+        this.regionKeys = regionKeys;
+        this.fromMin = fromMin;
+        this.fromMax = fromMax;
+        this.toMin = toMin;
+        this.toMax = toMax;
+
+        regionIndices = new IntIntHashMap(regionKeys.length * 2);
+        for (int i = 0; i < regionKeys.length; i++) {
+            regionIndices.put(regionKeys[i], i);
+        }
+    }
+
+    /**
+     * Identifies the transport kinds a table was computed with. Agility shortcuts are always loaded and
+     * therefore always part of the table.
+     */
+    public static String key(boolean useBoats, boolean useFairyRings, boolean useTeleports) {
+        return "b" + (useBoats ? 1 : 0) + "f" + (useFairyRings ? 1 : 0) + "t" + (useTeleports ? 1 : 0);
+    }
+
+    public WorldPoint[] getLandmarks() {
+        WorldPoint[] points = new WorldPoint[landmarks.length];
+        for (int i = 0; i < landmarks.length; i++) {
+            points[i] = WorldPointUtil.unpackWorldPoint(landmarks[i]);
+        }
+        return points;
+    }
+
+    /**
+     * A lower bound on the cost of travelling from one tile to another, or 0 if either tile is outside the
+     * table. Tiles that cannot reach each other may get a bound close to {@link Character#MAX_VALUE}.
+     */
+    public int lowerBound(int from, int to) {
+        int fromBucket = bucket(from);
+        int toBucket = bucket(to);
+        if (fromBucket < 0 || toBucket < 0) {
+            return 0;
+        }
+
+        int bound = 0;
+        int n = landmarks.length;
+        for (int i = 0; i < n; i++) {
+            int f = fromBucket * n + i;
+            int t = toBucket * n + i;
+            if (fromMax[f] != UNREACHABLE) {
+                bound = Math.max(bound, fromMin[t] - fromMax[f]);
+            }
+            if (toMax[t] != UNREACHABLE) {
+                bound = Math.max(bound, toMin[f] - toMax[t]);
+            }
+        }
+        return bound;
+    }
+
+    private int bucket(int position) {
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int region = regionIndices.get(regionKey(x, y), -1);
+        if (region < 0) {
+            return -1;
+        }
+        return region * BUCKETS_PER_REGION + localBucket(x % REGION_SIZE, y % REGION_SIZE, WorldPointUtil.unpackWorldPlane(position));
+    }
+
+    private static int localBucket(int localX, int localY, int plane) {
+        return plane * BUCKETS_PER_PLANE + (localY / BUCKET_SIZE) * BUCKETS_PER_ROW + localX / BUCKET_SIZE;
+    }
+
+    private static int regionKey(int x, int y) {
+        return ((y / REGION_SIZE) << 9) | (x / REGION_SIZE);
+    }
+
+    private static int tileIndex(int localX, int localY, int plane) {
+        return (plane * REGION_SIZE + localY) * REGION_SIZE + localX;
+    }
+
+    /**
+     * Loads the table for the transport kinds from the cache directory, computing and storing it first
+     * if it has not been cached for the current transports yet.
+     */
+    public static LandmarkTable load(File directory, String key, CollisionMap map, Map<WorldPoint, List<Transport>> transports) {
+        File file = new File(directory, "landmarks-" + key + "-" + Integer.toHexString(transportHash(transports)) + ".bin");
+        if (file.isFile()) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                LandmarkTable table = read(in);
+                if (key.equals(table.key)) {
+                    return table;
+                }
+            } catch (IOException ignored) {
+                // An unreadable cache file is replaced below
+            }
+        }
+
+        LandmarkTable table = compute(map, transports, key, DEFAULT_LANDMARK_COUNT);
+        if (directory.isDirectory() || directory.mkdirs()) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                table.write(out);
+            } catch (IOException ignored) {
+                // Without a cache file the table is computed again next time
+            }
+        }
+        return table;
+    }
+
+    static int transportHash(Map<WorldPoint, List<Transport>> transports) {
+        int hash = VERSION;
+        for (List<Transport> origin : transports.values()) {
+            for (Transport transport : origin) {
+                hash += (transport.getOrigin().hashCode() * 31 + transport.getDestination().hashCode()) * 31 + transport.getWait();
+            }
+        }
+        return hash;
+    }
+
+    public static LandmarkTable compute(CollisionMap map, Map<WorldPoint, List<Transport>> transports, String key, int landmarkCount) {
+        TransportIndex byOrigin = TransportIndex.byOrigin(transports);
+        TransportIndex byDestination = TransportIndex.byDestination(transports);
+
+        List<int[]> positions = new ArrayList<>();
+        for (SplitFlagMap.Position position : map.getRegionPositions()) {
+            positions.add(new int[]{position.x, position.y});
+        }
+        positions.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+
+        int regionCount = positions.size();
+        int[] regionKeys = new int[regionCount];
+        long[][] walkable = new long[regionCount][];
+        for (int r = 0; r < regionCount; r++) {
+            int minX = positions.get(r)[0] * REGION_SIZE;
+            int minY = positions.get(r)[1] * REGION_SIZE;
+            regionKeys[r] = regionKey(minX, minY);
+            walkable[r] = new long[TILES_PER_REGION / 64];
+            for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                for (int y = 0; y < REGION_SIZE; y++) {
+                    for (int x = 0; x < REGION_SIZE; x++) {
+                        if (!map.isBlocked(minX + x, minY + y, z)) {
+                            int tile = tileIndex(x, y, z);
+                            walkable[r][tile >>> 6] |= 1L << tile;
+                        }
+                    }
+                }
+            }
+        }
+
+        int buckets = regionCount * BUCKETS_PER_REGION;
+        char[] fromMin = new char[buckets * landmarkCount];
+        char[] fromMax = new char[buckets * landmarkCount];
+        char[] toMin = new char[buckets * landmarkCount];
+        char[] toMax = new char[buckets * landmarkCount];
+        Arrays.fill(fromMin, UNREACHABLE);
+        Arrays.fill(toMin, UNREACHABLE);
+
+        // Distances from the seed decide the first landmark and which tiles can be picked as landmarks at all
+        char[] closest = new char[buckets];
+        char[] unused = new char[buckets];
+        int[] candidates = new int[buckets];
+        Arrays.fill(closest, UNREACHABLE);
+        Arrays.fill(candidates, -1);
+        RegionDistances seedDistances = distances(map, WorldPointUtil.packWorldPoint(SEED), byOrigin, byDestination, false);
+        fold(seedDistances, regionKeys, walkable, closest, unused, 1, 0, candidates);
+
+        int[] landmarks = new int[landmarkCount];
+        for (int i = 0; i < landmarkCount; i++) {
+            int furthest = -1;
+            for (int b = 0; b < buckets; b++) {
+                if (candidates[b] >= 0 && closest[b] != UNREACHABLE && (furthest < 0 || closest[b] > closest[furthest])) {
+                    furthest = b;
+                }
+            }
+            if (furthest < 0) {
+                landmarks = Arrays.copyOf(landmarks, i);
+                break;
+            }
+            landmarks[i] = candidates[furthest];
+
+            fold(distances(map, landmarks[i], byOrigin, byDestination, false), regionKeys, walkable, fromMin, fromMax, landmarkCount, i, null);
+            fold(distances(map, landmarks[i], byOrigin, byDestination, true), regionKeys, walkable, toMin, toMax, landmarkCount, i, null);
+
+            for (int b = 0; b < buckets; b++) {
+                char distance = fromMin[b * landmarkCount + i];
+                closest[b] = i == 0 ? distance : (char) Math.min(closest[b], distance);
+            }
+        }
+
+        if (landmarks.length < landmarkCount) {
+            fromMin = compact(fromMin, landmarkCount, landmarks.length);
+            fromMax = compact(fromMax, landmarkCount, landmarks.length);
+            toMin = compact(toMin, landmarkCount, landmarks.length);
+            toMax = compact(toMax, landmarkCount, landmarks.length);
+        }
+
+        return new LandmarkTable(key, landmarks, regionKeys, fromMin, fromMax, toMin, toMax);
+    }
+
+    /**
+     * Dijkstra over the whole map from the root, following edges backwards when reversed. The costs are
+     * stored per region in tile index order.
+     */
+    private static RegionDistances distances(CollisionMap map, int root,
+                                             TransportIndex byOrigin, TransportIndex byDestination,
+                                             boolean reversed) {
+        Predicate<Transport> any = transport -> true;
+        RegionDistances distances = new RegionDistances();
+        NodeHeap boundary = new NodeHeap(1 << 16);
+        NeighborList neighbors = new NeighborList();
+
+        setDistance(distances, root, 0);
+        boundary.add(root, 0);
+        while (!boundary.isEmpty()) {
+            long cost = boundary.peekPriority();
+            int position = boundary.poll();
+            if (cost > getDistance(distances, position)) {
+                continue;
+            }
+
+            if (reversed) {
+                map.getPredecessors(position, byOrigin, byDestination, any, neighbors);
+            } else {
+                map.getNeighbors(position, byOrigin, any, neighbors);
+            }
+
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                int neighborCost = (int) cost + neighbors.getCost(i);
+                if (neighborCost < UNREACHABLE && neighborCost < getDistance(distances, neighbor)) {
+                    setDistance(distances, neighbor, neighborCost);
+                    boundary.add(neighbor, neighborCost);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static int getDistance(RegionDistances distances, int position) {
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        char[] region = distances.get(regionKey(x, y));
+        return region == null ? UNREACHABLE
+            : region[tileIndex(x % REGION_SIZE, y % REGION_SIZE, WorldPointUtil.unpackWorldPlane(position))];
+    }
+
+    private static void setDistance(RegionDistances distances, int position, int distance) {
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        char[] region = distances.get(regionKey(x, y));
+        if (region == null) {
+            region = new char[TILES_PER_REGION];
+            Arrays.fill(region, UNREACHABLE);
+            distances.add(regionKey(x, y), region);
+        }
+        region[tileIndex(x % REGION_SIZE, y % REGION_SIZE, WorldPointUtil.unpackWorldPlane(position))] = (char) distance;
+    }
+
+    /**
+     * Reduces tile distances to the minimum over the reached tiles of each bucket and the maximum over all of
+     * its walkable tiles, which is unknown if any walkable tile was not reached. Blocked tiles only count
+     * once reached, as the search never moves onto them otherwise. The first walkable reached tile of every
+     * bucket is recorded in reached tiles, if given.
+     */
+    private static void fold(RegionDistances distances, int[] regionKeys, long[][] walkable,
+                             char[] min, char[] max, int landmarkCount, int landmark, int[] reachedTiles) {
+        for (int r = 0; r < regionKeys.length; r++) {
+            char[] region = distances.get(regionKeys[r]);
+            int minX = (regionKeys[r] & 0x1FF) * REGION_SIZE;
+            int minY = (regionKeys[r] >>> 9) * REGION_SIZE;
+            for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                for (int y = 0; y < REGION_SIZE; y++) {
+                    for (int x = 0; x < REGION_SIZE; x++) {
+                        int tile = tileIndex(x, y, z);
+                        int bucket = r * BUCKETS_PER_REGION + localBucket(x, y, z);
+                        int i = bucket * landmarkCount + landmark;
+                        char distance = region == null ? UNREACHABLE : region[tile];
+                        boolean isWalkable = (walkable[r][tile >>> 6] & (1L << tile)) != 0;
+                        if (distance != UNREACHABLE) {
+                            min[i] = (char) Math.min(min[i], distance);
+                            if (max[i] != UNREACHABLE) {
+                                max[i] = (char) Math.max(max[i], distance);
+                            }
+                            if (reachedTiles != null && reachedTiles[bucket] < 0 && isWalkable) {
+                                reachedTiles[bucket] = WorldPointUtil.packWorldPoint(minX + x, minY + y, z);
+                            }
+                        } else if (isWalkable) {
+                            max[i] = UNREACHABLE;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static char[] compact(char[] values, int stride, int count) {
+        char[] compacted = new char[values.length / stride * count];
+        for (int b = 0; b < values.length / stride; b++) {
+            System.arraycopy(values, b * stride, compacted, b * count, count);
+        }
+        return compacted;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(key);
+        data.writeInt(landmarks.length);
+        for (int landmark : landmarks) {
+            data.writeInt(landmark);
+        }
+        data.writeInt(regionKeys.length);
+        for (int regionKey : regionKeys) {
+            data.writeInt(regionKey);
+        }
+        for (char[] values : new char[][]{fromMin, fromMax, toMin, toMax}) {
+            for (char value : values) {
+                data.writeChar(value);
+            }
+        }
+        data.flush();
+    }
+
+    public static LandmarkTable read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Unsupported landmark table");
+        }
+
+        String key = data.readUTF();
+        int[] landmarks = new int[data.readInt()];
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = data.readInt();
+        }
+        int[] regionKeys = new int[data.readInt()];
+        for (int i = 0; i < regionKeys.length; i++) {
+            regionKeys[i] = data.readInt();
+        }
+
+        char[][] values = new char[4][regionKeys.length * BUCKETS_PER_REGION * landmarks.length];
+        for (char[] array : values) {
+            for (int i = 0; i < array.length; i++) {
+                array[i] = data.readChar();
+            }
+        }
+        return new LandmarkTable(key, landmarks, regionKeys, values[0], values[1], values[2], values[3]);
+    }
+
+    /**
+     * The distances of the tiles of every reached region, looked up by region key without boxing it.
+     */
+    private static class RegionDistances {
+        private static final int NONE = -1;
+
+        private final IntIntHashMap indices = new IntIntHashMap(2048);
+        private final List<char[]> regions = new ArrayList<>();
+
+        private char[] get(int regionKey) {
+            int index = indices.get(regionKey, NONE);
+            return index == NONE ? null : regions.get(index);
+        }
+
+        private void add(int regionKey, char[] region) {
+            indices.put(regionKey, regions.size());
+            regions.add(region);
+        }
+    }
+}
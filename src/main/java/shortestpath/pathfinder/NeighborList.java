@@ -0,0 +1,38 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of packed neighbor positions and the cost of moving to each of them.
+ */
+public class NeighborList {
+    private int[] positions = new int[16];
+    private int[] costs = new int[16];
+    private int size;
+
+    public void add(int position, int cost) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size << 1);
+            costs = Arrays.copyOf(costs, size << 1);
+        }
+        positions[size] = position;
+        costs[size] = cost;
+        size++;
+    }
+
+    public int getPosition(int i) {
+        return positions[i];
+    }
+
+    public int getCost(int i) {
+        return costs[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
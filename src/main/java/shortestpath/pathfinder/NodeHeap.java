@@ -0,0 +1,114 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Binary min-heap of node indices ordered by a long priority, avoiding boxed queue entries.
+ */
+public class NodeHeap {
+    private long[] priorities;
+    private int[] nodes;
+    private int size;
+
+    public NodeHeap(int initialCapacity) {
+        priorities = new long[initialCapacity];
+        nodes = new int[initialCapacity];
+    }
+
+    public void add(int node, long priority) {
+        if (size == nodes.length) {
+            priorities = Arrays.copyOf(priorities, size << 1);
+            nodes = Arrays.copyOf(nodes, size << 1);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            priorities[i] = priorities[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        priorities[i] = priority;
+        nodes[i] = node;
+    }
+
+    public int poll() {
+        int result = nodes[0];
+        size--;
+        siftDown(0, nodes[size], priorities[size]);
+        return result;
+    }
+
+    /**
+     * Recomputes the priority of every node, dropping the nodes given a negative priority.
+     */
+    public void reorder(IntToLongFunction priority) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            long newPriority = priority.applyAsLong(nodes[i]);
+            if (newPriority >= 0) {
+                nodes[kept] = nodes[i];
+                priorities[kept] = newPriority;
+                kept++;
+            }
+        }
+        size = kept;
+
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, nodes[i], priorities[i]);
+        }
+    }
+
+    private void siftDown(int i, int node, long priority) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            priorities[i] = priorities[child];
+            nodes[i] = nodes[child];
+            i = child;
+        }
+        priorities[i] = priority;
+        nodes[i] = node;
+    }
+
+    /**
+     * The priority of the node that would be returned by the next {@link #poll()}.
+     */
+    public long peekPriority() {
+        return priorities[0];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all nodes and releases the backing arrays.
+     */
+    public void clear() {
+        priorities = new long[1];
+        nodes = new int[1];
+        size = 0;
+    }
+
+    /**
+     * The size of the backing arrays in bytes.
+     */
+    public int heapSize() {
+        return nodes.length * (Long.BYTES + Integer.BYTES);
+    }
+}
@@ -0,0 +1,124 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * Search tree stored in parallel primitive arrays. Each node is identified by its index and holds a packed
+ * position, the index of the node it was reached from and the total cost of reaching it.
+ */
+public class NodeTable {
+    public static final int NONE = -1;
+
+    private int[] positions;
+    private int[] previous;
+    private int[] costs;
+    private int size;
+
+    public NodeTable(int initialCapacity) {
+        positions = new int[initialCapacity];
+        previous = new int[initialCapacity];
+        costs = new int[initialCapacity];
+    }
+
+    public int add(int position, int previousNode, int cost) {
+        if (size == positions.length) {
+            int capacity = size << 1;
+            positions = Arrays.copyOf(positions, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+
+        positions[size] = position;
+        previous[size] = previousNode;
+        costs[size] = cost;
+        return size++;
+    }
+
+    public int getPosition(int node) {
+        return positions[node];
+    }
+
+    public int getPrevious(int node) {
+        return previous[node];
+    }
+
+    public int getCost(int node) {
+        return costs[node];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all nodes and releases the backing arrays.
+     */
+    public void clear() {
+        positions = new int[1];
+        previous = new int[1];
+        costs = new int[1];
+        size = 0;
+    }
+
+    /**
+     * The packed tiles of the path from the root to the node.
+     */
+    public int[] getPackedPath(int node) {
+        int length = 0;
+        for (int n = node; n != NONE; n = previous[n]) {
+            if (!Transport.isHub(positions[n])) {
+                length++;
+            }
+        }
+
+        int[] path = new int[length];
+        for (int n = node; n != NONE; n = previous[n]) {
+            if (!Transport.isHub(positions[n])) {
+                path[--length] = positions[n];
+            }
+        }
+        return path;
+    }
+
+    /**
+     * The packed tiles of the path from the node back to the root, for trees grown backwards from their root.
+     */
+    public int[] getPackedReversePath(int node) {
+        int length = 0;
+        for (int n = node; n != NONE; n = previous[n]) {
+            if (!Transport.isHub(positions[n])) {
+                length++;
+            }
+        }
+
+        int[] path = new int[length];
+        length = 0;
+        for (int n = node; n != NONE; n = previous[n]) {
+            if (!Transport.isHub(positions[n])) {
+                path[length++] = positions[n];
+            }
+        }
+        return path;
+    }
+
+    public List<WorldPoint> getPath(int node) {
+        int[] packedPath = getPackedPath(node);
+        List<WorldPoint> path = new ArrayList<>(packedPath.length);
+        for (int position : packedPath) {
+            path.add(WorldPointUtil.unpackWorldPoint(position));
+        }
+        return path;
+    }
+
+    /**
+     * The size of the backing arrays in bytes.
+     */
+    public int heapSize() {
+        return positions.length * 3 * Integer.BYTES;
+    }
+}
@@ -0,0 +1,66 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.WorldPointUtil;
+
+/**
+ * An immutable path published by a search for the overlays, which draw it on another thread. The tiles are
+ * packed into a single array that never changes once published. Every snapshot has a version of its own, across
+ * all searches, so an overlay can tell whether the path changed since it last drew it without comparing tiles.
+ */
+public class PathSnapshot {
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+    public static final PathSnapshot EMPTY = new PathSnapshot(new int[0]);
+
+    private final int[] tiles;
+    @Getter
+    private final int version;
+    /** The tiles as world points, made on first use and then shared by every reader */
+    private volatile List<WorldPoint> points;
+
+    PathSnapshot(int[] tiles) {
+        this.tiles = tiles;
+        this.version = VERSIONS.incrementAndGet();
+    }
+
+    static PathSnapshot of(List<WorldPoint> path) {
+        int[] tiles = new int[path.size()];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = WorldPointUtil.packWorldPoint(path.get(i));
+        }
+        return new PathSnapshot(tiles);
+    }
+
+    public int size() {
+        return tiles.length;
+    }
+
+    public boolean isEmpty() {
+        return tiles.length == 0;
+    }
+
+    public int getPackedTile(int i) {
+        return tiles[i];
+    }
+
+    /**
+     * The tiles of the path as an unmodifiable list, which is the same list on every call.
+     */
+    public List<WorldPoint> getPoints() {
+        List<WorldPoint> points = this.points;
+        if (points == null) {
+            List<WorldPoint> unpacked = new ArrayList<>(tiles.length);
+            for (int tile : tiles) {
+                unpacked.add(WorldPointUtil.unpackWorldPoint(tile));
+            }
+            points = Collections.unmodifiableList(unpacked);
+            this.points = points;
+        }
+        return points;
+    }
+}
@@ -1,101 +1,829 @@
 package shortestpath.pathfinder;
 
-import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
+import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
 
+/**
+ * A single search from the start to the target. The search runs when the pathfinder is executed, typically
+ * on an executor, and publishes the best path found so far while it runs.
+ *
+ * A tour past several stops is searched leg by leg once the order of the stops is known, and publishes the
+ * legs found so far, so the first leg is shown while the later ones are still being searched.
+ */
 public class Pathfinder implements Runnable {
+    private static final int TELEPORT_HUB = WorldPointUtil.packWorldPoint(Transport.TELEPORT_HUB);
+    /** Paths to the best node so far are published at most this often, as each one walks the whole path */
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     @Getter
     private final WorldPoint start;
+    /**
+     * The tile the player has to stay near for the search to go on. For the legs of a tour it is the start of the
+     * tour, as later legs start at stops far from the player.
+     */
+    private final WorldPoint tourStart;
+    /** The target, which for a search to several targets is the one that was reached, once there is one */
+    @Getter
+    private volatile WorldPoint target;
+    /** The target areas of a search to the closest of several targets, or null if there is a single target */
     @Getter
-    private final WorldPoint target;
+    private final List<WorldArea> targets;
+    /** Every tile of the target areas */
+    private final IntIntHashMap targetTiles;
+    /** The stops of a tour, in the order they are visited once it is known, or null if this is not a tour */
+    @Getter
+    private volatile List<WorldPoint> stops;
+    /** The costs between the start and the stops of a tour, reused by the next tour past the same stops */
+    private volatile DistanceMatrix legCosts;
+    private final DistanceMatrix previousLegCosts;
+    /** The search of the tour's leg that is being searched */
+    private volatile Pathfinder leg;
     private final PathfinderConfig config;
 
-    private final Deque<Node> boundary = new LinkedList<>();
-    private final Set<WorldPoint> visited = new HashSet<>();
-    private final Queue<Node> pending = new PriorityQueue<>();
+    private final NodeTable nodes = new NodeTable(1 << 16);
+    private final BucketQueue boundary = new BucketQueue();
+    private final IntIntHashMap costs = new IntIntHashMap(1 << 16);
+    private final NeighborList neighbors = new NeighborList();
+    private JumpPoints jumpPoints;
 
+    /** The best path found so far, published for the overlays to read from another thread */
     @Getter
-    private List<WorldPoint> path = new ArrayList<>();
+    private volatile PathSnapshot pathSnapshot = PathSnapshot.EMPTY;
     @Getter
     private boolean done = false;
+    @Getter
+    private int nodesExpanded = 0;
+    private volatile boolean cancelled = false;
+    private final CompletableFuture<List<WorldPoint>> result = new CompletableFuture<>();
+
+    private final int configVersion;
+    private final boolean replanning;
+    /**
+     * Whether teleports that can be cast from anywhere are usable from the start. Casting one later on is never
+     * cheaper than casting it right away, so they are only a step from the start onto {@link #TELEPORT_HUB}.
+     */
+    private boolean canTeleport;
+    private long nextProgressTime;
 
     public Pathfinder(PathfinderConfig config, WorldPoint start, WorldPoint target) {
+        this(config, start, target, null, null, null, false);
+    }
+
+    /**
+     * Searches for the closest of several target areas in a single pass. A target tile is an area of size one.
+     * The tile that was reached is the {@link #getTarget() target} once the search is done.
+     */
+    public Pathfinder(PathfinderConfig config, WorldPoint start, List<WorldArea> targets) {
+        this(config, start, null, new ArrayList<>(targets), null, null, false);
+    }
+
+    /**
+     * Searches for a tour that visits every stop, in the order that is the cheapest, or close to it with many
+     * stops. The last stop in that order is the {@link #getTarget() target} once it is known. The costs between
+     * the stops are taken from the previous search where it has them, which may be null.
+     */
+    public Pathfinder(PathfinderConfig config, WorldPoint start, List<WorldPoint> stops, Pathfinder previous) {
+        this(config, start, null, null, new ArrayList<>(stops), previous == null ? null : previous.legCosts, false);
+    }
+
+    /**
+     * Replans the path of an earlier search to its target from a new start. When searches are reused, the
+     * search grows a tree backwards from the target, which is kept in the {@link TargetTreeCache} so that later
+     * searches to the same target only have to search the part of the map that was not explored yet. Several
+     * targets and tours are searched again from the new start.
+     */
+    public Pathfinder(PathfinderConfig config, WorldPoint start, Pathfinder previous) {
+        this(config, start, previous.targets == null && previous.stops == null ? previous.target : null,
+            previous.targets, previous.stops, previous.legCosts, previous.targets == null && previous.stops == null);
+    }
+
+    private Pathfinder(PathfinderConfig config, WorldPoint start, WorldPoint target, List<WorldArea> targets,
+                       List<WorldPoint> stops, DistanceMatrix previousLegCosts, boolean replanning) {
         this.config = config;
         this.start = start;
+        this.tourStart = start;
         this.target = target;
+        this.targets = targets;
+        this.targetTiles = targets == null ? null : indexTiles(targets);
+        this.stops = stops;
+        this.previousLegCosts = previousLegCosts;
+        this.replanning = replanning;
         this.config.refresh();
+        this.configVersion = config.getVersion();
+    }
+
+    /**
+     * A leg of the tour, searched on the thread of the tour with the config as it was when the tour started.
+     */
+    private Pathfinder(Pathfinder tour, WorldPoint start, WorldPoint target) {
+        this.config = tour.config;
+        this.start = start;
+        this.tourStart = tour.start;
+        this.target = target;
+        this.targets = null;
+        this.targetTiles = null;
+        this.previousLegCosts = null;
+        this.replanning = false;
+        this.configVersion = tour.configVersion;
+    }
+
+    private static IntIntHashMap indexTiles(List<WorldArea> areas) {
+        IntIntHashMap tiles = new IntIntHashMap(64);
+        for (WorldArea area : areas) {
+            for (int y = area.getY(); y < area.getY() + area.getHeight(); y++) {
+                for (int x = area.getX(); x < area.getX() + area.getWidth(); x++) {
+                    tiles.put(WorldPointUtil.packWorldPoint(x, y, area.getPlane()), 0);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Stops the search at its next step, or before it starts if it has not been run yet.
+     * A cancelled search is never marked as done and its result is cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+        result.cancel(false);
+        Pathfinder leg = this.leg;
+        if (leg != null) {
+            leg.cancel();
+        }
+    }
 
-        new Thread(this).start();
+    /**
+     * The best path found so far, or the final path once the search is done. The list cannot be modified.
+     */
+    public List<WorldPoint> getPath() {
+        return pathSnapshot.getPoints();
     }
 
-    private void addNeighbors(Node node) {
-        for (Node neighbor : config.getMap().getNeighbors(node, config)) {
-            if (config.avoidWilderness(node.position, neighbor.position, target)) {
+    /**
+     * The final path, available once the search is done.
+     */
+    public Future<List<WorldPoint>> getResult() {
+        return result;
+    }
+
+    private void addNeighbors(int node, int packedTarget, Heuristic heuristic) {
+        int position = nodes.getPosition(node);
+        int cost = nodes.getCost(node);
+
+        if (jumpPoints != null) {
+            jumpPoints.getSuccessors(node, nodes, neighbors);
+        } else {
+            config.getMap().getNeighbors(position, config, neighbors);
+        }
+        for (int i = 0; i < neighbors.size(); i++) {
+            int neighbor = neighbors.getPosition(i);
+            if (config.avoidWilderness(position, neighbor, packedTarget)) {
                 continue;
             }
-            if (visited.add(neighbor.position)) {
-                if (neighbor instanceof TransportNode) {
-                    pending.add(neighbor);
-                } else {
-                    boundary.addLast(neighbor);
+            int neighborCost = cost + neighbors.getCost(i);
+            if (neighborCost < costs.get(neighbor, Integer.MAX_VALUE)) {
+                costs.put(neighbor, neighborCost);
+                int neighborNode = nodes.add(neighbor, node, neighborCost);
+                if (jumpPoints != null) {
+                    jumpPoints.setDirection(neighborNode, jumpPoints.getDirection(i));
                 }
+                enqueue(neighborNode, heuristic);
             }
         }
     }
 
+    private void setPath(int node) {
+        pathSnapshot = jumpPoints != null
+            ? PathSnapshot.of(jumpPoints.getPath(nodes, node))
+            : new PathSnapshot(nodes.getPackedPath(node));
+    }
+
+    private void setPath(List<WorldPoint> path) {
+        pathSnapshot = PathSnapshot.of(path);
+    }
+
+    /**
+     * The cutoff of one of the searches, with the part of the budget that earlier ones in this pathfinder left.
+     */
+    private Cutoff newCutoff() {
+        int budget = config.getExpansionBudget();
+        int budgetLeft = budget <= 0 ? Integer.MAX_VALUE : Math.max(0, budget - nodesExpanded);
+        return new Cutoff(config.getCalculationCutoff(), budgetLeft);
+    }
+
+    /**
+     * Whether the path to a better node should be published now. Otherwise only the node is remembered, and its
+     * path is published once the next one is due or when the search stops without reaching the target.
+     */
+    private boolean isProgressDue() {
+        long now = System.nanoTime();
+        if (now - nextProgressTime < 0) {
+            return false;
+        }
+        nextProgressTime = now + PROGRESS_INTERVAL_NANOS;
+        return true;
+    }
+
+    private void enqueue(int node, Heuristic heuristic) {
+        boundary.add(node, (long) nodes.getCost(node) + heuristic.estimate(nodes.getPosition(node)));
+    }
+
     @Override
     public void run() {
-        boundary.addFirst(new Node(start, null));
+        if (cancelled) {
+            return;
+        }
+
+        if (stops != null) {
+            searchTour();
+        } else {
+            searchPath();
+        }
+
+        if (cancelled) {
+            return;
+        }
+
+        List<WorldPoint> path = getPath();
+        this.config.exportPathToClipboard(path);
+        done = true;
+        result.complete(path);
+    }
+
+    private void searchPath() {
+        nextProgressTime = System.nanoTime();
+        canTeleport = config.canTeleportFrom(WorldPointUtil.packWorldPoint(start));
+        if (targets != null) {
+            // Several targets are only searched for forwards, tile by tile
+            search();
+        } else if (searchContracted()) {
+            // Answered from the precomputed routes
+        } else if (config.isHierarchicalSearch()) {
+            searchHierarchical();
+        } else if (replanning && config.isReuseSearches()) {
+            searchFromTarget();
+        } else if (config.isBidirectionalSearch()) {
+            searchBidirectional();
+        } else {
+            search();
+        }
+    }
+
+    /**
+     * Orders the stops by the costs between them, then searches the path of each leg in turn and appends it to
+     * the path. A leg that does not reach its stop ends the tour where it got to.
+     */
+    private void searchTour() {
+        List<WorldPoint> points = new ArrayList<>(stops.size() + 1);
+        points.add(start);
+        points.addAll(stops);
+        DistanceMatrix matrix = DistanceMatrix.compute(config, points, previousLegCosts, () -> cancelled);
+        if (cancelled) {
+            // The rows stopped early, so the matrix is not kept for later tours
+            return;
+        }
+        legCosts = matrix;
+
+        int[] order = TourPlanner.order(matrix);
+        List<WorldPoint> orderedStops = new ArrayList<>(stops.size());
+        for (int i = 1; i < order.length; i++) {
+            orderedStops.add(points.get(order[i]));
+        }
+        stops = orderedStops;
+        target = orderedStops.isEmpty() ? start : orderedStops.get(orderedStops.size() - 1);
+
+        List<WorldPoint> tour = new ArrayList<>();
+        WorldPoint from = start;
+        for (WorldPoint stop : orderedStops) {
+            Pathfinder leg = new Pathfinder(this, from, stop);
+            this.leg = leg;
+            if (cancelled) {
+                return;
+            }
+            leg.searchPath();
+            nodesExpanded += leg.nodesExpanded;
+            if (cancelled) {
+                return;
+            }
+
+            List<WorldPoint> legPath = leg.getPath();
+            // Each leg starts where the one before it ended
+            tour.addAll(tour.isEmpty() || legPath.isEmpty() ? legPath : legPath.subList(1, legPath.size()));
+            setPath(tour);
+            if (legPath.isEmpty() || !legPath.get(legPath.size() - 1).equals(stop)) {
+                break;
+            }
+            from = stop;
+        }
+        leg = null;
+    }
+
+    private void search() {
+        int packedStart = WorldPointUtil.packWorldPoint(start);
+        int packedTarget = targets == null ? WorldPointUtil.packWorldPoint(target) : wildernessTarget();
+        Heuristic heuristic = targets == null ? new Heuristic(config, target) : new Heuristic(config, targets);
+        int startNode = nodes.add(packedStart, NodeTable.NONE, 0);
+        if (config.isJumpPointSearch() && targets == null) {
+            jumpPoints = new JumpPoints(config, packedTarget);
+            jumpPoints.setDirection(startNode, JumpPoints.NONE);
+        }
+        enqueue(startNode, heuristic);
+        costs.put(packedStart, 0);
+        if (canTeleport) {
+            int hubNode = nodes.add(TELEPORT_HUB, startNode, 0);
+            if (jumpPoints != null) {
+                jumpPoints.setDirection(hubNode, JumpPoints.NONE);
+            }
+            enqueue(hubNode, heuristic);
+            costs.put(TELEPORT_HUB, 0);
+        }
 
         int bestDistance = Integer.MAX_VALUE;
         long bestHeuristic = Integer.MAX_VALUE;
-        Instant cutoffTime = Instant.now().plus(config.getCalculationCutoff());
+        int progressNode = NodeTable.NONE;
+        Cutoff cutoff = newCutoff();
 
-        while (!boundary.isEmpty() || !pending.isEmpty()) {
-            Node node = boundary.peekFirst();
-            Node p = pending.peek();
+        while (!cancelled && !boundary.isEmpty()) {
+            int node = boundary.poll();
+            int position = nodes.getPosition(node);
 
-            if (p != null && (node == null || p.cost < node.cost)) {
-                boundary.addFirst(p);
-                pending.poll();
+            if (nodes.getCost(node) > costs.get(position, Integer.MAX_VALUE)) {
+                continue;
             }
 
-            node = boundary.removeFirst();
-
-            if (node.position.equals(target) || !config.isNear(start)) {
-                path = node.getPath();
+            if (isTarget(position, packedTarget)) {
+                target = WorldPointUtil.unpackWorldPoint(position);
+                progressNode = node;
+                break;
+            }
+            if (!config.isNear(tourStart)) {
+                progressNode = node;
                 break;
             }
 
-            int distance = Node.distanceBetween(node.position, target);
-            long heuristic = distance + Node.distanceBetween(node.position, target, 2);
-            if (heuristic < bestHeuristic || (heuristic <= bestHeuristic && distance < bestDistance)) {
-                path = node.getPath();
+            int distance = targetDistance(position, packedTarget, 1);
+            long distanceHeuristic = distance + targetDistance(position, packedTarget, 2);
+            if (distanceHeuristic < bestHeuristic || (distanceHeuristic <= bestHeuristic && distance < bestDistance)) {
+                progressNode = node;
+                if (isProgressDue()) {
+                    setPath(node);
+                    progressNode = NodeTable.NONE;
+                }
                 bestDistance = distance;
-                bestHeuristic = heuristic;
-                cutoffTime = Instant.now().plus(config.getCalculationCutoff());
+                bestHeuristic = distanceHeuristic;
+                cutoff.progress();
             }
 
-            if (Instant.now().isAfter(cutoffTime)) {
+            if (cutoff.isReached()) {
                 break;
             }
 
-            addNeighbors(node);
+            nodesExpanded++;
+            addNeighbors(node, packedTarget, heuristic);
         }
 
-        this.config.exportPathToClipboard(path);
-        done = true;
+        if (progressNode != NodeTable.NONE) {
+            setPath(progressNode);
+        }
         boundary.clear();
-        visited.clear();
-        pending.clear();
+        costs.clear();
+        nodes.clear();
+    }
+
+    private boolean isTarget(int position, int packedTarget) {
+        return targetTiles == null ? position == packedTarget : targetTiles.containsKey(position);
+    }
+
+    /**
+     * The distance to the closest target, like {@link WorldPointUtil#distanceBetween(int, int, int)}.
+     */
+    private int targetDistance(int position, int packedTarget, int diagonal) {
+        if (targets == null) {
+            return WorldPointUtil.distanceBetween(position, packedTarget, diagonal);
+        }
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int distance = Integer.MAX_VALUE;
+        for (WorldArea area : targets) {
+            int dx = Math.max(0, Math.max(area.getX() - x, x - (area.getX() + area.getWidth() - 1)));
+            int dy = Math.max(0, Math.max(area.getY() - y, y - (area.getY() + area.getHeight() - 1)));
+            distance = Math.min(distance, diagonal == 1 ? Math.max(dx, dy) : dx + dy);
+        }
+        return distance;
+    }
+
+    /**
+     * The target tile deciding whether steps into the Wilderness are avoided when there are several targets.
+     * A target inside the Wilderness allows them, as it could not be reached otherwise.
+     */
+    private int wildernessTarget() {
+        int tile = WorldPointUtil.UNDEFINED;
+        for (WorldArea area : targets) {
+            tile = WorldPointUtil.packWorldPoint(area.getX(), area.getY(), area.getPlane());
+            if (!config.isAvoidingWilderness(tile)) {
+                break;
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Plans the route on the {@link RegionGraph} first, between region entrances and transports, and then walks
+     * each leg inside its region. Long routes search far fewer nodes, but as only some border tiles are entrances
+     * the path can be a few tiles longer than the shortest one. If the graph has no route, or a leg of it cannot
+     * be walked, a full search finds the closest reachable tile instead.
+     */
+    private void searchHierarchical() {
+        int packedStart = WorldPointUtil.packWorldPoint(start);
+        int packedTarget = WorldPointUtil.packWorldPoint(target);
+        RegionGraph graph = config.getRegionGraph(config.isAvoidingWilderness(packedTarget));
+        Heuristic heuristic = new Heuristic(config, target);
+        int[] startNodes = graph.getNodes(packedStart);
+        int[] startDistances = graph.getLocalDistances(packedStart, false);
+        int[] targetNodes = graph.getNodes(packedTarget);
+        int[] targetDistances = graph.getLocalDistances(packedTarget, true);
+        int directDistance = graph.getLocalDistance(packedStart, packedTarget);
+
+        int startNode = nodes.add(packedStart, NodeTable.NONE, 0);
+        enqueue(startNode, heuristic);
+        costs.put(packedStart, 0);
+
+        int targetNode = NodeTable.NONE;
+        Cutoff cutoff = newCutoff();
+
+        while (!cancelled && !boundary.isEmpty()) {
+            int node = boundary.poll();
+            int position = nodes.getPosition(node);
+            int cost = nodes.getCost(node);
+
+            if (cost > costs.get(position, Integer.MAX_VALUE)) {
+                continue;
+            }
+
+            if (position == packedTarget) {
+                targetNode = node;
+                break;
+            }
+
+            if (cutoff.isReached() || !config.isNear(tourStart)) {
+                break;
+            }
+
+            nodesExpanded++;
+            graph.getNeighbors(position, config.getTransportFilter(), neighbors);
+            if (node == startNode) {
+                for (int i = 0; i < startNodes.length; i++) {
+                    if (startDistances[i] > 0) {
+                        neighbors.add(startNodes[i], startDistances[i]);
+                    }
+                }
+                if (directDistance >= 0) {
+                    neighbors.add(packedTarget, directDistance);
+                }
+                if (canTeleport) {
+                    neighbors.add(TELEPORT_HUB, 0);
+                }
+            }
+            if (RegionGraph.isSameRegion(position, packedTarget)) {
+                for (int i = 0; i < targetNodes.length; i++) {
+                    if (targetNodes[i] == position && targetDistances[i] >= 0) {
+                        neighbors.add(packedTarget, targetDistances[i]);
+                    }
+                }
+            }
+
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                if (config.avoidWilderness(position, neighbor, packedTarget)) {
+                    continue;
+                }
+                int neighborCost = cost + neighbors.getCost(i);
+                if (neighborCost < costs.get(neighbor, Integer.MAX_VALUE)) {
+                    costs.put(neighbor, neighborCost);
+                    enqueue(nodes.add(neighbor, node, neighborCost), heuristic);
+                }
+            }
+        }
+
+        List<Integer> route = new ArrayList<>();
+        for (int n = targetNode; n != NodeTable.NONE; n = nodes.getPrevious(n)) {
+            route.add(n);
+        }
+
+        boolean walkedRoute = targetNode != NodeTable.NONE;
+        if (walkedRoute) {
+            List<WorldPoint> walked = new ArrayList<>();
+            walked.add(start);
+            for (int i = route.size() - 2; i >= 0 && walkedRoute; i--) {
+                walkedRoute = addLeg(graph, nodes.getPosition(route.get(i + 1)), nodes.getPosition(route.get(i)),
+                    nodes.getCost(route.get(i)) - nodes.getCost(route.get(i + 1)), walked);
+            }
+            if (walkedRoute) {
+                setPath(walked);
+            }
+        }
+
+        boundary.clear();
+        costs.clear();
+        nodes.clear();
+
+        if (!walkedRoute && !cancelled) {
+            search();
+        }
+    }
+
+    /**
+     * Looks up the route in the contraction hierarchy of the enabled transport kinds, entering and leaving it
+     * through the nodes of the start and target regions, and walks it like a hierarchical search. The hierarchy
+     * includes transports whose requirements are not met, so routes that use one are left to the other searches.
+     *
+     * @return whether a route to the target was found, false when precomputed routes are disabled or not built yet
+     */
+    private boolean searchContracted() {
+        int packedStart = WorldPointUtil.packWorldPoint(start);
+        int packedTarget = WorldPointUtil.packWorldPoint(target);
+        boolean avoidingWilderness = config.isAvoidingWilderness(packedTarget);
+        ContractionHierarchy hierarchy = config.isPrecomputedRoutes() ? config.getHierarchy(avoidingWilderness) : null;
+        if (hierarchy == null) {
+            return false;
+        }
+
+        RegionGraph graph = config.getRegionGraph(avoidingWilderness);
+        int directDistance = graph.getLocalDistance(packedStart, packedTarget);
+        int[] targetNodes = graph.getNodes(packedTarget);
+        int[] targetDistances = graph.getLocalDistances(packedTarget, true);
+        int[] startNodes = graph.getNodes(packedStart);
+        int[] startDistances = graph.getLocalDistances(packedStart, false);
+        if (canTeleport) {
+            startNodes = Arrays.copyOf(startNodes, startNodes.length + 1);
+            startNodes[startNodes.length - 1] = TELEPORT_HUB;
+            startDistances = Arrays.copyOf(startDistances, startDistances.length + 1);
+        }
+        ContractionHierarchy.Route route = hierarchy.route(startNodes, startDistances, targetNodes, targetDistances);
+
+        List<WorldPoint> walked = new ArrayList<>();
+        walked.add(start);
+        if (directDistance >= 0 && (route == null || directDistance <= route.getTotalCost())) {
+            addLeg(graph, packedStart, packedTarget, directDistance, walked);
+            setPath(walked);
+            return true;
+        }
+        if (route == null) {
+            return false;
+        }
+
+        int from = packedStart;
+        int cost = 0;
+        for (int i = 0; i < route.size(); i++) {
+            int to = route.getPosition(i);
+            if (!addLeg(graph, from, to, route.getCost(i) - cost, walked)) {
+                return false;
+            }
+            from = to;
+            cost = route.getCost(i);
+        }
+        if (!addLeg(graph, from, packedTarget, route.getTotalCost() - cost, walked)) {
+            return false;
+        }
+        setPath(walked);
+        return true;
+    }
+
+    /**
+     * Adds the tiles of a leg between two nodes of the region graph to the path. A leg inside a region is walked
+     * unless a transport there is cheaper, other legs are a single step across a border or along a transport.
+     *
+     * @return whether the leg can be taken with the current transport requirements
+     */
+    private boolean addLeg(RegionGraph graph, int from, int to, int cost, List<WorldPoint> walked) {
+        // Only the start steps onto the teleport hub
+        if (from == to || to == TELEPORT_HUB) {
+            return true;
+        }
+        List<WorldPoint> leg = graph.getLocalPath(from, to);
+        if (leg != null && leg.size() == cost) {
+            walked.addAll(leg);
+            return true;
+        }
+
+        if (!Transport.isHub(to)) {
+            walked.add(WorldPointUtil.unpackWorldPoint(to));
+        }
+        if (cost == 1 && WorldPointUtil.distanceBetween(from, to, 2) == 1 &&
+            WorldPointUtil.unpackWorldPlane(from) == WorldPointUtil.unpackWorldPlane(to)) {
+            return true;
+        }
+        TransportIndex transports = config.getTransportsPacked();
+        int row = transports.find(from);
+        if (row != TransportIndex.NONE) {
+            for (int i = transports.getStart(row); i < transports.getEnd(row); i++) {
+                if (transports.getPosition(i) == to && config.getTransportFilter().test(transports.getTransport(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches forwards from the start and backwards from the target at the same time, always expanding the
+     * side with the smaller boundary. Every time one side reaches a tile the other side has already reached,
+     * the combined path is a candidate route. Since both heuristics are admissible, the best candidate is
+     * optimal once either side has no boundary node left with an estimate below its cost. A backward side that
+     * runs out without meeting the forward side leaves the forward side to search on alone, as a blocked or
+     * unreachable target does not end the forward search either.
+     */
+    private void searchBidirectional() {
+        int packedStart = WorldPointUtil.packWorldPoint(start);
+        int packedTarget = WorldPointUtil.packWorldPoint(target);
+        Frontier forward = new Frontier(new Heuristic(config, target), packedStart, packedTarget, false);
+        Frontier backward = new Frontier(new Heuristic(config, start, true), packedTarget, packedStart, true);
+        if (canTeleport) {
+            forward.relax(TELEPORT_HUB, 0, 0);
+        }
+
+        int bestCost = Integer.MAX_VALUE;
+        int meetingForward = NodeTable.NONE;
+        int meetingBackward = NodeTable.NONE;
+        if (packedStart == packedTarget) {
+            bestCost = 0;
+            meetingForward = 0;
+            meetingBackward = 0;
+        }
+
+        int progressNode = NodeTable.NONE;
+        Cutoff cutoff = newCutoff();
+
+        while (!cancelled && !forward.boundary.isEmpty()) {
+            if (forward.minimumEstimate() >= bestCost ||
+                (!backward.boundary.isEmpty() && backward.minimumEstimate() >= bestCost)) {
+                break;
+            }
+            if (!config.isNear(tourStart)) {
+                // As in the single search, the path so far is kept, which is the start node if none was published yet
+                if (progressNode == NodeTable.NONE && pathSnapshot == PathSnapshot.EMPTY) {
+                    progressNode = 0;
+                }
+                break;
+            }
+
+            // Once the backward side runs out, the forward side goes on alone to get as close as it can
+            Frontier frontier = backward.boundary.isEmpty() || forward.boundary.size() <= backward.boundary.size()
+                ? forward : backward;
+            Frontier other = frontier == forward ? backward : forward;
+            long estimate = frontier.minimumEstimate();
+            int node = frontier.boundary.poll();
+            int position = frontier.nodes.getPosition(node);
+            int cost = frontier.nodes.getCost(node);
+
+            // Nodes that cannot lead to a route cheaper than the best one found so far are not expanded
+            if (frontier.bestNodes.get(position, NodeTable.NONE) != node || estimate >= bestCost) {
+                continue;
+            }
+
+            if (frontier.isProgress(position)) {
+                if (frontier == forward && bestCost == Integer.MAX_VALUE) {
+                    progressNode = node;
+                    if (isProgressDue()) {
+                        pathSnapshot = new PathSnapshot(forward.nodes.getPackedPath(node));
+                        progressNode = NodeTable.NONE;
+                    }
+                }
+                cutoff.progress();
+            }
+
+            if (cutoff.isReached()) {
+                break;
+            }
+
+            nodesExpanded++;
+            if (frontier.backward) {
+                config.getMap().getPredecessors(position, config, neighbors);
+            } else {
+                config.getMap().getNeighbors(position, config, neighbors);
+            }
+
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                boolean avoid = frontier.backward
+                    ? config.avoidWilderness(neighbor, position, packedTarget)
+                    : config.avoidWilderness(position, neighbor, packedTarget);
+                if (avoid) {
+                    continue;
+                }
+
+                int neighborCost = cost + neighbors.getCost(i);
+                int neighborNode = frontier.relax(neighbor, node, neighborCost);
+                if (neighborNode == NodeTable.NONE) {
+                    continue;
+                }
+
+                int otherNode = other.bestNodes.get(neighbor, NodeTable.NONE);
+                if (otherNode != NodeTable.NONE && neighborCost + other.nodes.getCost(otherNode) < bestCost) {
+                    bestCost = neighborCost + other.nodes.getCost(otherNode);
+                    meetingForward = frontier == forward ? neighborNode : otherNode;
+                    meetingBackward = frontier == forward ? otherNode : neighborNode;
+                }
+            }
+        }
+
+        if (meetingForward != NodeTable.NONE) {
+            List<WorldPoint> meetingPath = forward.nodes.getPath(meetingForward);
+            for (int n = backward.nodes.getPrevious(meetingBackward); n != NodeTable.NONE; n = backward.nodes.getPrevious(n)) {
+                if (!Transport.isHub(backward.nodes.getPosition(n))) {
+                    meetingPath.add(WorldPointUtil.unpackWorldPoint(backward.nodes.getPosition(n)));
+                }
+            }
+            setPath(meetingPath);
+        } else if (progressNode != NodeTable.NONE) {
+            pathSnapshot = new PathSnapshot(forward.nodes.getPackedPath(progressNode));
+        }
+    }
+
+    /**
+     * Searches backwards from the target until the start is reached, continuing the cached tree of earlier
+     * searches to the target if there is one. The graph is the same for every search sharing the tree, so all
+     * its costs stay valid; only the boundary is reordered for the new start. Every node taken off the boundary
+     * is expanded, even when the search stops at it, so the tree can always be continued.
+     */
+    private void searchFromTarget() {
+        int packedStart = WorldPointUtil.packWorldPoint(start);
+        int packedTarget = WorldPointUtil.packWorldPoint(target);
+        Heuristic heuristic = new Heuristic(config, start, true);
+        Frontier tree = config.getTargetTrees().take(packedTarget, configVersion);
+        if (tree == null) {
+            tree = new Frontier(heuristic, packedTarget, packedStart, true);
+        } else {
+            tree.retarget(heuristic, packedStart);
+        }
+        // Teleports cast from earlier starts stay in the tree, as they could have been cast from anywhere
+        int hubNode = tree.bestNodes.get(TELEPORT_HUB, NodeTable.NONE);
+        if (canTeleport && hubNode != NodeTable.NONE) {
+            tree.relax(packedStart, hubNode, tree.nodes.getCost(hubNode));
+        }
+
+        // A search that failed part way through an expansion leaves the tree incomplete, so it is not put back
+        boolean reached = growTargetTree(tree, packedStart, packedTarget);
+        config.getTargetTrees().put(packedTarget, configVersion, tree);
+
+        // Paths in the tree lead to the target, so without the start in it there is no path from the player to
+        // show, and a forward search finds the closest reachable tile instead
+        if (!reached && !cancelled) {
+            search();
+        }
+    }
+
+    /**
+     * Grows the tree until the start is taken off its boundary.
+     *
+     * @return whether the start was reached, in which case the path is set
+     */
+    private boolean growTargetTree(Frontier tree, int packedStart, int packedTarget) {
+        Cutoff cutoff = newCutoff();
+
+        while (!cancelled && !tree.boundary.isEmpty()) {
+            int node = tree.boundary.poll();
+            int position = tree.nodes.getPosition(node);
+            int cost = tree.nodes.getCost(node);
+
+            if (tree.bestNodes.get(position, NodeTable.NONE) != node) {
+                continue;
+            }
+
+            nodesExpanded++;
+            config.getMap().getPredecessors(position, config, neighbors);
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighbor = neighbors.getPosition(i);
+                if (!config.avoidWilderness(neighbor, position, packedTarget)) {
+                    tree.relax(neighbor, node, cost + neighbors.getCost(i));
+                }
+            }
+            if (canTeleport && position == TELEPORT_HUB) {
+                tree.relax(packedStart, node, cost);
+            }
+
+            if (position == packedStart) {
+                pathSnapshot = new PathSnapshot(tree.nodes.getPackedReversePath(node));
+                return true;
+            }
+
+            if (tree.isProgress(position)) {
+                cutoff.progress();
+            }
+
+            if (cutoff.isReached() || !config.isNear(tourStart)) {
+                break;
+            }
+        }
+        return false;
     }
 }
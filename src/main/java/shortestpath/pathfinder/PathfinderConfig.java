@@ -6,9 +6,16 @@ import java.awt.Color;
 import java.awt.Toolkit;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
@@ -16,29 +23,81 @@ import lombok.Getter;
 import net.runelite.api.Client;
 import net.runelite.api.Constants;
 import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
 import net.runelite.api.Quest;
 import net.runelite.api.QuestState;
 import net.runelite.api.Skill;
 import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
 import shortestpath.ShortestPathConfig;
+import shortestpath.Rune;
 import shortestpath.ShortestPathPlugin;
 import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
 
 public class PathfinderConfig {
     private static final WorldArea WILDERNESS_ABOVE_GROUND = new WorldArea(2944, 3523, 448, 448, 0);
     private static final WorldArea WILDERNESS_UNDERGROUND = new WorldArea(2944, 9918, 320, 442, 0);
+    /** Above level 20 of the Wilderness no teleport can be cast */
+    private static final WorldArea DEEP_WILDERNESS_ABOVE_GROUND = new WorldArea(2944, 3680, 448, 291, 0);
+    private static final WorldArea DEEP_WILDERNESS_UNDERGROUND = new WorldArea(2944, 10080, 320, 280, 0);
+    private static final int TELEPORT_HUB = WorldPointUtil.packWorldPoint(Transport.TELEPORT_HUB);
+    /** The varbit of the active spellbook, which is 0 for the standard spellbook */
+    private static final int SPELLBOOK_VARBIT = 4070;
+    private static final int STANDARD_SPELLBOOK = 0;
+    private static final Rune[] RUNES = Rune.values();
 
     @Getter
     private final CollisionMap map;
+    /** Every loaded transport by its origin, only changed through {@link #setTransports} and {@link #addTransport} */
     @Getter
     private final Map<WorldPoint, List<Transport>> transports;
+    /** Counts the changes to the loaded transports, which the searches cannot tell from the map itself */
+    private volatile int transportsVersion;
+    /** Transport origins and the tiles next to blocked ones, where a jump point search has to stop */
+    @Getter
+    private IntIntHashMap transportTiles;
+    /**
+     * The transports compiled whenever the {@link #version} changes, so that searches do not check requirements.
+     * They are replaced as a whole, so a search thread never sees some of them from before a change and some
+     * from after it.
+     */
+    private volatile CompiledTransports compiledTransports;
+    /** Whether a transport is usable, by the compiled transports rather than its requirements */
+    @Getter
+    private final Predicate<Transport> transportFilter = transport -> compiledTransports.usable.contains(transport);
+    /** Landmark tables by {@link LandmarkTable#key}, filled in the background */
+    private final Map<String, LandmarkTable> landmarks = new ConcurrentHashMap<>();
+    private String landmarkKey;
+    /** Contraction hierarchies by the same key as the landmark tables, built in the background */
+    private final Map<String, ContractionHierarchy> hierarchies = new ConcurrentHashMap<>();
+    @Getter
+    private final TargetTreeCache targetTrees = new TargetTreeCache();
     private final Client client;
     private final ShortestPathConfig config;
     private final ShortestPathPlugin plugin;
 
     @Getter
     private Duration calculationCutoff;
+    /** The most nodes a search may expand, or 0 for no limit */
+    @Getter
+    private int expansionBudget;
+    @Getter
+    private boolean bidirectionalSearch;
+    @Getter
+    private boolean jumpPointSearch;
+    @Getter
+    private boolean hierarchicalSearch;
+    @Getter
+    private boolean precomputedRoutes;
+    private boolean landmarkEstimates;
+    @Getter
+    private boolean reuseSearches;
+    /** The region graphs that walk into the Wilderness and that avoid it, by whether they avoid it */
+    private final RegionGraph[] regionGraphs = new RegionGraph[2];
+    private final int[] regionGraphTransportsVersions = new int[2];
     private boolean avoidWilderness;
     private boolean useAgilityShortcuts;
     private boolean useGrappleShortcuts;
@@ -50,7 +109,22 @@ public class PathfinderConfig {
     private int strengthLevel;
     private int prayerLevel;
     private int woodcuttingLevel;
+    private int magicLevel;
+    private boolean standardSpellbook;
+    /**
+     * The runes in the inventory, or {@link Integer#MAX_VALUE} for those an equipped staff provides. Runes in a
+     * rune pouch are not counted, so spells paid from one are left out of paths rather than shown without runes.
+     */
+    private Map<Rune, Integer> runes = new EnumMap<>(Rune.class);
+    private boolean fairyRingsUnlocked = true;
     private Map<Quest, QuestState> questStates = new HashMap<>();
+    private List<Object> state;
+    /**
+     * Changes whenever a setting, skill level or quest state that decides which tiles and transports can be
+     * used changes, so that search results can be reused only while it stays the same.
+     */
+    @Getter
+    private volatile int version;
 
     public PathfinderConfig(CollisionMap map, Map<WorldPoint, List<Transport>> transports, Client client,
                             ShortestPathConfig config, ShortestPathPlugin plugin) {
@@ -64,25 +138,164 @@ public class PathfinderConfig {
 
     public void refresh() {
         calculationCutoff = Duration.ofMillis(config.calculationCutoff() * Constants.GAME_TICK_LENGTH);
+        expansionBudget = config.expansionBudget();
+        bidirectionalSearch = config.bidirectionalSearch();
+        jumpPointSearch = config.jumpPointSearch();
+        hierarchicalSearch = config.hierarchicalSearch();
+        precomputedRoutes = config.precomputedRoutes();
+        landmarkEstimates = config.landmarkEstimates();
+        reuseSearches = config.reuseSearches();
         avoidWilderness = config.avoidWilderness();
         useAgilityShortcuts = config.useAgilityShortcuts();
         useGrappleShortcuts = config.useGrappleShortcuts();
         useBoats = config.useBoats();
-        useFairyRings = config.useFairyRings();
+        useFairyRings = config.useFairyRings() && fairyRingsUnlocked;
         useTeleports = config.useTeleports();
 
+        landmarkKey = LandmarkTable.key(config.useBoats(), config.useFairyRings(), config.useTeleports());
+
         if (GameState.LOGGED_IN.equals(client.getGameState())) {
             agilityLevel = client.getBoostedSkillLevel(Skill.AGILITY);
             rangedLevel = client.getBoostedSkillLevel(Skill.RANGED);
             strengthLevel = client.getBoostedSkillLevel(Skill.STRENGTH);
             prayerLevel = client.getBoostedSkillLevel(Skill.PRAYER);
             woodcuttingLevel = client.getBoostedSkillLevel(Skill.WOODCUTTING);
+            magicLevel = client.getBoostedSkillLevel(Skill.MAGIC);
+            standardSpellbook = client.getVarbitValue(SPELLBOOK_VARBIT) == STANDARD_SPELLBOOK;
+            runes = countRunes();
             plugin.getClientThread().invokeLater(this::refreshQuests);
         }
+        updateVersion();
+    }
+
+    static IntIntHashMap indexTransportTiles(Map<WorldPoint, List<Transport>> transports, CollisionMap map) {
+        IntIntHashMap index = new IntIntHashMap(transports.size() * 2);
+        for (WorldPoint origin : transports.keySet()) {
+            int x = origin.getX();
+            int y = origin.getY();
+            int z = origin.getPlane();
+            index.put(WorldPointUtil.packWorldPoint(x, y, z), 0);
+            // Blocked origins are entered from the tiles next to them
+            if (map.isBlocked(x, y, z)) {
+                index.put(WorldPointUtil.packWorldPoint(x - 1, y, z), 0);
+                index.put(WorldPointUtil.packWorldPoint(x + 1, y, z), 0);
+                index.put(WorldPointUtil.packWorldPoint(x, y - 1, z), 0);
+                index.put(WorldPointUtil.packWorldPoint(x, y + 1, z), 0);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the loaded transports, as when the enabled transport kinds change.
+     */
+    public void setTransports(Map<WorldPoint, List<Transport>> transports) {
+        this.transports.clear();
+        this.transports.putAll(transports);
+        transportsVersion++;
+    }
+
+    public void addTransport(Transport transport) {
+        transports.computeIfAbsent(transport.getOrigin(), k -> new ArrayList<>()).add(transport);
+        transportsVersion++;
+    }
+
+    /**
+     * The region graph over all loaded transports, which avoids the Wilderness if asked to. It is set up on
+     * first use, and again after transports were added or removed.
+     */
+    public synchronized RegionGraph getRegionGraph(boolean avoidWilderness) {
+        int i = avoidWilderness ? 1 : 0;
+        if (regionGraphs[i] == null || regionGraphTransportsVersions[i] != transportsVersion) {
+            regionGraphTransportsVersions[i] = transportsVersion;
+            regionGraphs[i] = new RegionGraph(map, transports, avoidWilderness);
+        }
+        return regionGraphs[i];
+    }
+
+    /**
+     * The landmark table for the enabled transport kinds, or null if it has not been loaded yet or landmark
+     * estimates are turned off.
+     */
+    public LandmarkTable getLandmarks() {
+        return landmarkEstimates ? landmarks.get(landmarkKey) : null;
+    }
+
+    public void addLandmarks(LandmarkTable table) {
+        landmarks.put(table.getKey(), table);
+    }
+
+    public boolean hasLandmarks(String key) {
+        return landmarks.containsKey(key);
+    }
+
+    /**
+     * The contraction hierarchy for the enabled transport kinds that avoids the Wilderness or not, or null if it
+     * has not been built yet.
+     */
+    public ContractionHierarchy getHierarchy(boolean avoidWilderness) {
+        return hierarchies.get(ContractionHierarchy.key(landmarkKey, avoidWilderness));
+    }
+
+    public void addHierarchy(ContractionHierarchy hierarchy) {
+        hierarchies.put(hierarchy.getKey(), hierarchy);
+    }
+
+    public boolean hasHierarchy(String key) {
+        return hierarchies.containsKey(key);
+    }
+
+    private synchronized void updateVersion() {
+        List<Object> newState = Arrays.asList(avoidWilderness, useAgilityShortcuts, useGrappleShortcuts, useBoats,
+            useFairyRings, useTeleports, agilityLevel, rangedLevel, strengthLevel, prayerLevel, woodcuttingLevel,
+            magicLevel, standardSpellbook, runes, new HashMap<>(questStates), transportsVersion);
+        if (!newState.equals(state)) {
+            state = newState;
+            transportTiles = indexTransportTiles(transports, map);
+            compileUsableTransports();
+            version++;
+        }
+    }
+
+    /**
+     * Every loaded transport keyed by its packed origin, compiled with the usable transports.
+     */
+    public TransportIndex getTransportsPacked() {
+        return compiledTransports.all;
+    }
+
+    /**
+     * The transports whose requirements are met, keyed by their packed origin.
+     */
+    public TransportIndex getUsableTransportsByOrigin() {
+        return compiledTransports.usableByOrigin;
+    }
+
+    /**
+     * The transports whose requirements are met, keyed by their packed destination.
+     */
+    public TransportIndex getUsableTransportsByDestination() {
+        return compiledTransports.usableByDestination;
+    }
+
+    private void compileUsableTransports() {
+        Map<WorldPoint, List<Transport>> usable = new HashMap<>();
+        Set<Transport> usableSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<WorldPoint, List<Transport>> entry : transports.entrySet()) {
+            for (Transport transport : entry.getValue()) {
+                if (useTransport(transport)) {
+                    usable.computeIfAbsent(entry.getKey(), k -> new ArrayList<>(2)).add(transport);
+                    usableSet.add(transport);
+                }
+            }
+        }
+        compiledTransports = new CompiledTransports(TransportIndex.byOrigin(transports),
+            TransportIndex.byOrigin(usable), TransportIndex.byDestination(usable), usableSet);
     }
 
     private void refreshQuests() {
-        useFairyRings &= !QuestState.NOT_STARTED.equals(Quest.FAIRYTALE_II__CURE_A_QUEEN.getState(client));
+        fairyRingsUnlocked = !QuestState.NOT_STARTED.equals(Quest.FAIRYTALE_II__CURE_A_QUEEN.getState(client));
+        useFairyRings &= fairyRingsUnlocked;
         for (Map.Entry<WorldPoint, List<Transport>> entry : transports.entrySet()) {
             for (Transport transport : entry.getValue()) {
                 if (transport.isQuestLocked()) {
@@ -93,14 +306,50 @@ public class PathfinderConfig {
                 }
             }
         }
+        updateVersion();
     }
 
-    private boolean isInWilderness(WorldPoint p) {
-        return WILDERNESS_ABOVE_GROUND.distanceTo(p) == 0 || WILDERNESS_UNDERGROUND.distanceTo(p) == 0;
+    static boolean isInWilderness(int packedPoint) {
+        return WorldPointUtil.distanceToArea(packedPoint, WILDERNESS_ABOVE_GROUND) == 0 ||
+            WorldPointUtil.distanceToArea(packedPoint, WILDERNESS_UNDERGROUND) == 0;
     }
 
-    public boolean avoidWilderness(WorldPoint position, WorldPoint neighbor, WorldPoint target) {
-        return avoidWilderness && !isInWilderness(position) && isInWilderness(neighbor) && !isInWilderness(target);
+    /**
+     * Whether the teleports that can be cast from anywhere are usable, and can be cast from the tile.
+     */
+    public boolean canTeleportFrom(int packedPoint) {
+        return getUsableTransportsByOrigin().contains(TELEPORT_HUB) &&
+            WorldPointUtil.distanceToArea(packedPoint, DEEP_WILDERNESS_ABOVE_GROUND) != 0 &&
+            WorldPointUtil.distanceToArea(packedPoint, DEEP_WILDERNESS_UNDERGROUND) != 0;
+    }
+
+    public boolean avoidWilderness(int packedPosition, int packedNeighbor, int packedTarget) {
+        return avoidWilderness && !isInWilderness(packedPosition) && isInWilderness(packedNeighbor) && !isInWilderness(packedTarget);
+    }
+
+    /**
+     * Whether steps into the Wilderness are avoided on the way to the target.
+     */
+    public boolean isAvoidingWilderness(int packedTarget) {
+        return avoidWilderness && !isInWilderness(packedTarget);
+    }
+
+    /**
+     * Whether the tile is inside or outside the Wilderness within a tile of its edge.
+     */
+    public boolean isNearWildernessEdge(int packedPoint) {
+        return isNearEdge(packedPoint, WILDERNESS_ABOVE_GROUND) || isNearEdge(packedPoint, WILDERNESS_UNDERGROUND);
+    }
+
+    private static boolean isNearEdge(int packedPoint, WorldArea area) {
+        int distance = WorldPointUtil.distanceToArea(packedPoint, area);
+        if (distance != 0) {
+            return distance == 1;
+        }
+        int x = WorldPointUtil.unpackWorldX(packedPoint);
+        int y = WorldPointUtil.unpackWorldY(packedPoint);
+        return x == area.getX() || x == area.getX() + area.getWidth() - 1 ||
+            y == area.getY() || y == area.getY() + area.getHeight() - 1;
     }
 
     public boolean isNear(WorldPoint location) {
@@ -117,6 +366,7 @@ public class PathfinderConfig {
         final int transportStrengthLevel = transport.getRequiredLevel(Skill.STRENGTH);
         final int transportPrayerLevel = transport.getRequiredLevel(Skill.PRAYER);
         final int transportWoodcuttingLevel = transport.getRequiredLevel(Skill.WOODCUTTING);
+        final int transportMagicLevel = transport.getRequiredLevel(Skill.MAGIC);
 
         final boolean isAgilityShortcut = transport.isAgilityShortcut();
         final boolean isGrappleShortcut = transport.isGrappleShortcut();
@@ -159,6 +409,20 @@ public class PathfinderConfig {
             return false;
         }
 
+        if (magicLevel < transportMagicLevel) {
+            return false;
+        }
+
+        if (transport.isSpell() && !standardSpellbook) {
+            return false;
+        }
+
+        for (Rune rune : RUNES) {
+            if (runes.getOrDefault(rune, 0) < transport.getRequiredRunes(rune)) {
+                return false;
+            }
+        }
+
         if (isQuestLocked && !QuestState.FINISHED.equals(questStates.getOrDefault(transport.getQuest(), QuestState.NOT_STARTED))) {
             return false;
         }
@@ -166,6 +430,32 @@ public class PathfinderConfig {
         return true;
     }
 
+    private Map<Rune, Integer> countRunes() {
+        Map<Rune, Integer> counts = new EnumMap<>(Rune.class);
+        ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
+        if (inventory != null) {
+            for (Item item : inventory.getItems()) {
+                for (Rune rune : RUNES) {
+                    if (item.getId() == rune.getItemId()) {
+                        counts.merge(rune, item.getQuantity(), Integer::sum);
+                    }
+                }
+            }
+        }
+
+        ItemContainer equipment = client.getItemContainer(InventoryID.EQUIPMENT);
+        if (equipment != null) {
+            for (Item item : equipment.getItems()) {
+                for (Rune rune : RUNES) {
+                    if (rune.isProvidedBy(item.getId())) {
+                        counts.put(rune, Integer.MAX_VALUE);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
     private List<WorldPoint> optimizePath(List<WorldPoint> path) {
         WorldPoint current = path.get(1);
         int diff_x;
@@ -310,4 +600,19 @@ public class PathfinderConfig {
         Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
         clipboard.setContents(stringSelection, null);
     }
+
+    private static class CompiledTransports {
+        private final TransportIndex all;
+        private final TransportIndex usableByOrigin;
+        private final TransportIndex usableByDestination;
+        private final Set<Transport> usable;
+
+        private CompiledTransports(TransportIndex all, TransportIndex usableByOrigin,
+                                   TransportIndex usableByDestination, Set<Transport> usable) {
+            this.all = all;
+            this.usableByOrigin = usableByOrigin;
+            this.usableByDestination = usableByDestination;
+            this.usable = usable;
+        }
+    }
 }
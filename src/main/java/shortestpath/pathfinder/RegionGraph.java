@@ -0,0 +1,371 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * An abstract graph over the 64x64 regions of the collision map, for planning long routes before walking them.
+ * Its nodes are entrance tiles on region borders, where walking crosses into the neighbouring region, and the
+ * ends of transports. Neighbouring entrances are joined by a single step, transports by their cost, and the
+ * nodes of each region by their walking distance inside the region.
+ *
+ * A graph that avoids the Wilderness has no edges that step into it from outside, so that routes and the walks
+ * inside regions follow the same rule as {@link PathfinderConfig#avoidWilderness}. It is only used for targets
+ * outside the Wilderness.
+ *
+ * Regions are set up the first time a search reaches them, so the graph only grows where routes are planned.
+ * Long openings in a border get an entrance every few tiles rather than on every tile, which keeps the graph
+ * small but can make routes through it a few tiles longer than the shortest path.
+ *
+ * The graph reuses its buffers between queries, so it is only used by one search at a time.
+ */
+public class RegionGraph {
+    private static final int REGION_SIZE = 64;
+    private static final int REGION_TILES = REGION_SIZE * REGION_SIZE;
+    /** The largest number of tiles of a border opening that share one entrance */
+    private static final int ENTRANCE_SPACING = 16;
+    private static final int UNREACHABLE = -1;
+    private static final OrdinalDirection[] DIRECTIONS = OrdinalDirection.values();
+    private static final Predicate<Transport> NO_TRANSPORTS = transport -> false;
+
+    private final CollisionMap map;
+    private final boolean avoidWilderness;
+    private final TransportIndex transportsByOrigin;
+    private final TransportIndex transportsByDestination;
+    /** The transport origins and destinations in each region, by region key */
+    private final Map<Integer, List<Integer>> transportEnds = new HashMap<>();
+    private final Map<Integer, Region> regions = new HashMap<>();
+
+    private final NeighborList localNeighbors = new NeighborList();
+    private final int[] localDistances = new int[REGION_TILES];
+    private final int[] localPrevious = new int[REGION_TILES];
+    private final int[] localQueue = new int[REGION_TILES];
+
+    public RegionGraph(CollisionMap map, Map<WorldPoint, List<Transport>> transports, boolean avoidWilderness) {
+        this.map = map;
+        this.avoidWilderness = avoidWilderness;
+        this.transportsByOrigin = TransportIndex.byOrigin(transports);
+        this.transportsByDestination = TransportIndex.byDestination(transports);
+
+        for (List<Transport> origin : transports.values()) {
+            for (Transport transport : origin) {
+                addTransportEnd(WorldPointUtil.packWorldPoint(transport.getOrigin()));
+                addTransportEnd(WorldPointUtil.packWorldPoint(transport.getDestination()));
+            }
+        }
+    }
+
+    private void addTransportEnd(int position) {
+        int key = regionKey(position);
+        List<Integer> ends = transportEnds.get(key);
+        if (ends == null) {
+            ends = new ArrayList<>(4);
+            transportEnds.put(key, ends);
+        }
+        if (!ends.contains(position)) {
+            ends.add(position);
+        }
+    }
+
+    private boolean isAvoided(int position, int neighbor) {
+        return avoidWilderness && !PathfinderConfig.isInWilderness(position) && PathfinderConfig.isInWilderness(neighbor);
+    }
+
+    public static boolean isSameRegion(int a, int b) {
+        return regionKey(a) == regionKey(b);
+    }
+
+    private static int regionKey(int position) {
+        return WorldPointUtil.packWorldPoint(
+            WorldPointUtil.unpackWorldX(position) / REGION_SIZE,
+            WorldPointUtil.unpackWorldY(position) / REGION_SIZE,
+            WorldPointUtil.unpackWorldPlane(position));
+    }
+
+    /**
+     * The nodes of the region containing the tile.
+     */
+    public int[] getNodes(int position) {
+        return getRegion(position).nodes;
+    }
+
+    /**
+     * The nodes of every region with tiles or transports, setting up all regions.
+     */
+    public int[] getAllNodes() {
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (SplitFlagMap.Position position : map.getRegionPositions()) {
+            for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                keys.add(WorldPointUtil.packWorldPoint(position.x, position.y, z));
+            }
+        }
+        keys.addAll(transportEnds.keySet());
+
+        int count = 0;
+        int[] nodes = new int[1 << 16];
+        for (int key : keys) {
+            for (int node : getRegionByKey(key).nodes) {
+                if (count == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, count << 1);
+                }
+                nodes[count++] = node;
+            }
+        }
+        return Arrays.copyOf(nodes, count);
+    }
+
+    /**
+     * Fills in the nodes reachable from a node in one edge of the graph, together with the cost of the edge.
+     * Tiles that are not nodes have no edges.
+     */
+    public void getNeighbors(int position, Predicate<Transport> usable, NeighborList neighbors) {
+        neighbors.clear();
+
+        Region region = getRegion(position);
+        int index = region.indices.get(position, UNREACHABLE);
+        if (index == UNREACHABLE) {
+            return;
+        }
+
+        int[] distances = getDistances(region);
+        int count = region.nodes.length;
+        for (int i = 0; i < count; i++) {
+            int distance = distances[index * count + i];
+            if (i != index && distance != UNREACHABLE) {
+                neighbors.add(region.nodes[i], distance);
+            }
+        }
+
+        int x = WorldPointUtil.unpackWorldX(position);
+        int y = WorldPointUtil.unpackWorldY(position);
+        int z = WorldPointUtil.unpackWorldPlane(position);
+        int traversable = map.getTraversable(x, y, z);
+        for (int i = 0; i < 4; i++) {
+            OrdinalDirection d = DIRECTIONS[i];
+            int neighbor = WorldPointUtil.packWorldPoint(x + d.x, y + d.y, z);
+            if ((traversable & (1 << i)) != 0 && !isSameRegion(position, neighbor) && !isAvoided(position, neighbor) &&
+                getRegion(neighbor).indices.containsKey(neighbor)) {
+                neighbors.add(neighbor, 1);
+            }
+        }
+
+        int row = transportsByOrigin.find(position);
+        if (row != TransportIndex.NONE) {
+            for (int i = transportsByOrigin.getStart(row); i < transportsByOrigin.getEnd(row); i++) {
+                int destination = transportsByOrigin.getPosition(i);
+                if (usable.test(transportsByOrigin.getTransport(i)) && !isAvoided(position, destination)) {
+                    neighbors.add(destination, transportsByOrigin.getCost(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * The walking distance inside its region from the tile to each node of the region, or to the tile from each
+     * node when searching backwards, in the order of {@link #getNodes}. Unreachable nodes have a distance of -1.
+     */
+    public int[] getLocalDistances(int position, boolean backward) {
+        Region region = getRegion(position);
+        walk(position, backward, UNREACHABLE);
+        int[] distances = new int[region.nodes.length];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = localDistances[localIndex(region.nodes[i])];
+        }
+        return distances;
+    }
+
+    /**
+     * The walking distance between two tiles inside their region, or -1 if either they are in different
+     * regions or the way between them leaves the region.
+     */
+    public int getLocalDistance(int from, int to) {
+        if (!isSameRegion(from, to)) {
+            return UNREACHABLE;
+        }
+        walk(from, false, to);
+        return localDistances[localIndex(to)];
+    }
+
+    /**
+     * The tiles walked inside their region from one tile to another, without the first tile, or null if the
+     * way between them leaves the region.
+     */
+    public List<WorldPoint> getLocalPath(int from, int to) {
+        if (getLocalDistance(from, to) == UNREACHABLE) {
+            return null;
+        }
+
+        List<WorldPoint> path = new ArrayList<>();
+        int minX = WorldPointUtil.unpackWorldX(from) / REGION_SIZE * REGION_SIZE;
+        int minY = WorldPointUtil.unpackWorldY(from) / REGION_SIZE * REGION_SIZE;
+        int z = WorldPointUtil.unpackWorldPlane(from);
+        for (int i = localIndex(to); i != localIndex(from); i = localPrevious[i]) {
+            path.add(new WorldPoint(minX + i % REGION_SIZE, minY + i / REGION_SIZE, z));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private Region getRegion(int position) {
+        return getRegionByKey(regionKey(position));
+    }
+
+    private Region getRegionByKey(int regionKey) {
+        return regions.computeIfAbsent(regionKey, key -> createRegion(
+            WorldPointUtil.unpackWorldX(key), WorldPointUtil.unpackWorldY(key), WorldPointUtil.unpackWorldPlane(key)));
+    }
+
+    private Region createRegion(int regionX, int regionY, int z) {
+        int minX = regionX * REGION_SIZE;
+        int minY = regionY * REGION_SIZE;
+        int maxX = minX + REGION_SIZE - 1;
+        int maxY = minY + REGION_SIZE - 1;
+        List<Integer> nodes = new ArrayList<>();
+
+        // Both regions of a border find the same openings, so their entrances face each other
+        for (int offset : entrances(minX - 1, minY, 0, 1, z, OrdinalDirection.EAST)) {
+            nodes.add(WorldPointUtil.packWorldPoint(minX, minY + offset, z));
+        }
+        for (int offset : entrances(maxX, minY, 0, 1, z, OrdinalDirection.EAST)) {
+            nodes.add(WorldPointUtil.packWorldPoint(maxX, minY + offset, z));
+        }
+        for (int offset : entrances(minX, minY - 1, 1, 0, z, OrdinalDirection.NORTH)) {
+            nodes.add(WorldPointUtil.packWorldPoint(minX + offset, minY, z));
+        }
+        for (int offset : entrances(minX, maxY, 1, 0, z, OrdinalDirection.NORTH)) {
+            nodes.add(WorldPointUtil.packWorldPoint(minX + offset, maxY, z));
+        }
+
+        List<Integer> ends = transportEnds.get(WorldPointUtil.packWorldPoint(regionX, regionY, z));
+        if (ends != null) {
+            nodes.addAll(ends);
+        }
+
+        IntIntHashMap indices = new IntIntHashMap(nodes.size());
+        int count = 0;
+        int[] positions = new int[nodes.size()];
+        for (int position : nodes) {
+            if (!indices.containsKey(position)) {
+                indices.put(position, count);
+                positions[count++] = position;
+            }
+        }
+        return new Region(Arrays.copyOf(positions, count), indices);
+    }
+
+    /**
+     * The offsets along a border of the tiles where an entrance is placed. The border runs from the given tile
+     * in steps of (stepX, stepY) and is crossed in the given direction, which has to be possible both ways.
+     */
+    private List<Integer> entrances(int x, int y, int stepX, int stepY, int z, OrdinalDirection direction) {
+        int forward = 1 << direction.ordinal();
+        int backward = 1 << (direction == OrdinalDirection.EAST ? OrdinalDirection.WEST : OrdinalDirection.SOUTH).ordinal();
+        List<Integer> offsets = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= REGION_SIZE; i++) {
+            int ax = x + stepX * i;
+            int ay = y + stepY * i;
+            boolean open = i < REGION_SIZE &&
+                (map.getTraversable(ax, ay, z) & forward) != 0 &&
+                (map.getTraversable(ax + direction.x, ay + direction.y, z) & backward) != 0;
+            if (open && start < 0) {
+                start = i;
+            } else if (!open && start >= 0) {
+                int length = i - start;
+                int parts = (length + ENTRANCE_SPACING - 1) / ENTRANCE_SPACING;
+                for (int part = 0; part < parts; part++) {
+                    int first = start + part * length / parts;
+                    int last = start + (part + 1) * length / parts - 1;
+                    offsets.add((first + last) / 2);
+                }
+                start = -1;
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * The walking distances between the nodes of the region, as a matrix by node index.
+     */
+    private int[] getDistances(Region region) {
+        if (region.distances == null) {
+            int count = region.nodes.length;
+            int[] distances = new int[count * count];
+            for (int i = 0; i < count; i++) {
+                walk(region.nodes[i], false, UNREACHABLE);
+                for (int j = 0; j < count; j++) {
+                    distances[i * count + j] = localDistances[localIndex(region.nodes[j])];
+                }
+            }
+            region.distances = distances;
+        }
+        return region.distances;
+    }
+
+    /**
+     * A breadth first search inside the region of the tile, filling in the local distances and previous
+     * tiles. Stops early once the goal is reached, if there is one.
+     */
+    private void walk(int origin, boolean backward, int goal) {
+        int minX = WorldPointUtil.unpackWorldX(origin) / REGION_SIZE * REGION_SIZE;
+        int minY = WorldPointUtil.unpackWorldY(origin) / REGION_SIZE * REGION_SIZE;
+        int z = WorldPointUtil.unpackWorldPlane(origin);
+
+        Arrays.fill(localDistances, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        localDistances[localIndex(origin)] = 0;
+        localQueue[tail++] = localIndex(origin);
+        while (head < tail) {
+            int index = localQueue[head++];
+            int position = WorldPointUtil.packWorldPoint(minX + index % REGION_SIZE, minY + index / REGION_SIZE, z);
+            if (position == goal) {
+                return;
+            }
+
+            if (backward) {
+                map.getPredecessors(position, transportsByOrigin, transportsByDestination, NO_TRANSPORTS, localNeighbors);
+            } else {
+                map.getNeighbors(position, transportsByOrigin, NO_TRANSPORTS, localNeighbors);
+            }
+            for (int i = 0; i < localNeighbors.size(); i++) {
+                int neighbor = localNeighbors.getPosition(i);
+                if (!isSameRegion(origin, neighbor) ||
+                    (backward ? isAvoided(neighbor, position) : isAvoided(position, neighbor))) {
+                    continue;
+                }
+                int neighborIndex = localIndex(neighbor);
+                if (localDistances[neighborIndex] == UNREACHABLE) {
+                    localDistances[neighborIndex] = localDistances[index] + 1;
+                    localPrevious[neighborIndex] = index;
+                    localQueue[tail++] = neighborIndex;
+                }
+            }
+        }
+    }
+
+    private static int localIndex(int position) {
+        return WorldPointUtil.unpackWorldY(position) % REGION_SIZE * REGION_SIZE + WorldPointUtil.unpackWorldX(position) % REGION_SIZE;
+    }
+
+    private static class Region {
+        private final int[] nodes;
+        private final IntIntHashMap indices;
+        private int[] distances;
+
+        private Region(int[] nodes, IntIntHashMap indices) {
+            this.nodes = nodes;
+            this.indices = indices;
+        }
+    }
+}
@@ -3,53 +3,130 @@ package shortestpath.pathfinder;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
 import com.google.common.cache.Weigher;
 import com.google.common.util.concurrent.UncheckedExecutionException;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
-import java.util.zip.GZIPInputStream;
-import shortestpath.Util;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public abstract class SplitFlagMap {
-    private static final int MAXIMUM_SIZE = 20 * 1024 * 1024;
+    // Fits the traversable directions of every region, 16 KB for each of the 1469 regions or about 23 MB, so
+    // sweeps over the whole map such as computing landmark tables do not thrash the cache
+    private static final int MAXIMUM_SIZE = 32 * 1024 * 1024;
     private final int regionSize;
     private final LoadingCache<Position, FlagMap> regionMaps;
     private final int flagCount;
 
-    public SplitFlagMap(int regionSize, Map<Position, byte[]> compressedRegions, int flagCount) {
+    /**
+     * Lock-free view of the loaded regions, indexed by region x and y, which answers most lookups
+     * without going through the cache. Regions are cleared from it when the cache evicts them.
+     */
+    private final AtomicReferenceArray<FlagMap> loadedRegions;
+    private final int regionCountX;
+    private final int regionCountY;
+    private final Set<Position> regionPositions;
+    /**
+     * Counts the lookups that went through the cache. Only those can evict a region, so a region found in the
+     * lock-free view is marked as used in the cache once each time the count changes, which keeps eviction
+     * in the order regions were last used without going through the cache on every lookup.
+     */
+    private volatile int cacheLookups;
+
+    public SplitFlagMap(int regionSize, Map<Position, ByteBuffer> regions, int flagCount) {
         this.regionSize = regionSize;
         this.flagCount = flagCount;
+        this.regionPositions = Collections.unmodifiableSet(regions.keySet());
+
+        int maxX = 0;
+        int maxY = 0;
+        for (Position position : regions.keySet()) {
+            maxX = Math.max(maxX, position.x);
+            maxY = Math.max(maxY, position.y);
+        }
+        regionCountX = maxX + 1;
+        regionCountY = maxY + 1;
+        loadedRegions = new AtomicReferenceArray<>(regionCountX * regionCountY);
+
         regionMaps = CacheBuilder
                 .newBuilder()
-                .weigher((Weigher<Position, FlagMap>) (k, v) -> v.flags.size() / 8)
+                // Only heap memory is weighed, including the traversable directions derived by CollisionMap
+                .weigher((Weigher<Position, FlagMap>) (k, v) -> v.heapSize())
                 .maximumWeight(MAXIMUM_SIZE)
+                .removalListener((RemovalListener<Position, FlagMap>) removal -> {
+                    Position position = removal.getKey();
+                    if (position != null && isInGrid(position.x, position.y)) {
+                        loadedRegions.compareAndSet(position.y * regionCountX + position.x, removal.getValue(), null);
+                    }
+                })
                 .build(CacheLoader.from(position -> {
-                    byte[] compressedRegion = compressedRegions.get(position);
+                    ByteBuffer region = regions.get(position);
 
-                    if (compressedRegion == null) {
+                    if (region == null) {
                         return new FlagMap(position.x * regionSize, position.y * regionSize, (position.x + 1) * regionSize - 1, (position.y + 1) * regionSize - 1, this.flagCount);
                     }
 
-                    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedRegion))) {
-                        return new FlagMap(Util.readAllBytes(in), this.flagCount);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
+                    return new FlagMap(region, this.flagCount);
                 }));
     }
 
+    /**
+     * The positions of all regions that have flags stored, in region coordinates.
+     */
+    public Set<Position> getRegionPositions() {
+        return regionPositions;
+    }
+
     public boolean get(int x, int y, int z, int flag) {
+        return getRegion(x, y).get(x, y, z, flag);
+    }
+
+    protected FlagMap getRegion(int x, int y) {
+        int regionX = x / regionSize;
+        int regionY = y / regionSize;
+
+        if (!isInGrid(regionX, regionY)) {
+            return loadRegion(regionX, regionY);
+        }
+
+        int index = regionY * regionCountX + regionX;
+        FlagMap region = loadedRegions.get(index);
+        if (region == null) {
+            region = loadRegion(regionX, regionY);
+            publish(index, new Position(regionX, regionY), region);
+        } else if (region.cacheLookups != cacheLookups) {
+            region.cacheLookups = cacheLookups;
+            regionMaps.getIfPresent(new Position(regionX, regionY));
+        }
+        return region;
+    }
+
+    private FlagMap loadRegion(int regionX, int regionY) {
+        cacheLookups++;
         try {
-            return regionMaps.get(new Position(x / regionSize, y / regionSize)).get(x, y, z, flag);
+            return regionMaps.get(new Position(regionX, regionY));
         } catch (ExecutionException e) {
             throw new UncheckedExecutionException(e);
         }
     }
 
+    /**
+     * Adds a loaded region to the lock-free view. A region that was evicted before it was added is taken out
+     * again, as the removal listener ran while it was not in the view yet.
+     */
+    private void publish(int index, Position position, FlagMap region) {
+        if (loadedRegions.compareAndSet(index, null, region) && regionMaps.asMap().get(position) != region) {
+            loadedRegions.compareAndSet(index, region, null);
+        }
+    }
+
+    private boolean isInGrid(int regionX, int regionY) {
+        return regionX >= 0 && regionX < regionCountX && regionY >= 0 && regionY < regionCountY;
+    }
+
     public static class Position {
         public final int x;
         public final int y;
@@ -0,0 +1,43 @@
+package shortestpath.pathfinder;
+
+/**
+ * The search tree grown backwards from the target by the last replanning search, so that the next replan to
+ * the same target continues the tree from its new start instead of starting over. Only the part of the map
+ * the tree has not explored yet is searched, but the boundary is reordered for every new start, and the start
+ * is only final once it comes off the boundary again, so a replan is not bounded by the length of its path.
+ *
+ * Replans only ever continue the search before them, so a single tree is kept. It is only valid for the
+ * {@link PathfinderConfig#getVersion() configuration version} it was grown with, and a tree that has grown
+ * past the size limit is dropped rather than kept.
+ */
+public class TargetTreeCache {
+    private static final int MAXIMUM_SIZE = 64 * 1024 * 1024;
+
+    private int target;
+    private int version;
+    private Frontier tree;
+
+    /**
+     * Removes and returns the tree for the target, so that no other search grows it until it is put back.
+     */
+    synchronized Frontier take(int target, int version) {
+        Frontier taken = tree != null && target == this.target && version == this.version ? tree : null;
+        tree = null;
+        return taken;
+    }
+
+    /**
+     * Stores a tree in place of the one kept before, unless it is too large.
+     */
+    synchronized void put(int target, int version, Frontier tree) {
+        if (tree.heapSize() <= MAXIMUM_SIZE) {
+            this.target = target;
+            this.version = version;
+            this.tree = tree;
+        }
+    }
+
+    public synchronized void clear() {
+        tree = null;
+    }
+}
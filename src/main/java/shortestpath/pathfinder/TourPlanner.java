@@ -0,0 +1,204 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Finds the order in which to visit a number of stops, starting from the first tile of a {@link DistanceMatrix}
+ * and ending at whichever stop is visited last. Up to {@link #EXACT_STOPS} stops the cheapest order is found by
+ * dynamic programming over the sets of visited stops. Beyond that the order starts out by always going to the
+ * nearest stop not visited yet, and is then improved by reversing a part of it (2-opt) or moving up to three
+ * stops elsewhere (Or-opt) for as long as either makes it cheaper.
+ */
+public class TourPlanner {
+    /** Stops besides the start that are still ordered exactly, which takes 2^n * n^2 steps */
+    public static final int EXACT_STOPS = 12;
+    private static final int MAXIMUM_MOVED = 3;
+    private static final long INFINITY = Long.MAX_VALUE / 4;
+    /** More than the reachable legs of any order cost together, far below overflowing for every leg */
+    private static final long UNREACHABLE_PENALTY = 1L << 40;
+
+    private TourPlanner() {
+    }
+
+    /**
+     * The indices of the matrix in the order to visit them, starting with index 0.
+     */
+    public static int[] order(DistanceMatrix costs) {
+        int size = costs.size();
+        if (size <= 2) {
+            int[] order = new int[size];
+            Arrays.setAll(order, i -> i);
+            return order;
+        }
+        if (size - 1 <= EXACT_STOPS) {
+            return exactOrder(costs);
+        }
+        return heuristicOrder(costs);
+    }
+
+    /**
+     * The nearest neighbor order improved by 2-opt and Or-opt moves, which {@link #order} uses beyond
+     * {@link #EXACT_STOPS} stops. It is not always the cheapest order.
+     */
+    public static int[] heuristicOrder(DistanceMatrix costs) {
+        int[] order = nearestNeighborOrder(costs);
+        improve(costs, order);
+        return order;
+    }
+
+    /**
+     * The total cost of visiting the indices in the given order. The cost of an unreachable leg is counted as
+     * a large penalty, so orders with fewer unreachable legs are cheaper, and the total is capped so that any
+     * number of them cannot overflow.
+     */
+    public static long cost(DistanceMatrix costs, int[] order) {
+        long total = 0;
+        int unreachable = 0;
+        for (int i = 1; i < order.length; i++) {
+            int cost = costs.getCost(order[i - 1], order[i]);
+            if (cost == DistanceMatrix.UNREACHABLE) {
+                unreachable++;
+            } else {
+                total += cost;
+            }
+        }
+        return Math.min(INFINITY, total + unreachable * UNREACHABLE_PENALTY);
+    }
+
+    private static long cost(DistanceMatrix costs, int from, int to) {
+        int cost = costs.getCost(from, to);
+        return cost == DistanceMatrix.UNREACHABLE ? INFINITY : cost;
+    }
+
+    private static int[] exactOrder(DistanceMatrix costs) {
+        int stops = costs.size() - 1;
+        int sets = 1 << stops;
+        // The cheapest cost of visiting a set of stops, ending at one of them, and the stop visited before it
+        long[] best = new long[sets * stops];
+        int[] before = new int[sets * stops];
+        Arrays.fill(best, INFINITY);
+        for (int last = 0; last < stops; last++) {
+            best[(1 << last) * stops + last] = cost(costs, 0, last + 1);
+            before[(1 << last) * stops + last] = -1;
+        }
+        for (int set = 1; set < sets; set++) {
+            for (int last = 0; last < stops; last++) {
+                long cost = best[set * stops + last];
+                if ((set & (1 << last)) == 0 || cost >= INFINITY) {
+                    continue;
+                }
+                for (int next = 0; next < stops; next++) {
+                    if ((set & (1 << next)) != 0) {
+                        continue;
+                    }
+                    int nextSet = set | (1 << next);
+                    long nextCost = cost + cost(costs, last + 1, next + 1);
+                    if (nextCost < best[nextSet * stops + next]) {
+                        best[nextSet * stops + next] = nextCost;
+                        before[nextSet * stops + next] = last;
+                    }
+                }
+            }
+        }
+
+        int set = sets - 1;
+        int last = 0;
+        for (int stop = 1; stop < stops; stop++) {
+            if (best[set * stops + stop] < best[set * stops + last]) {
+                last = stop;
+            }
+        }
+        if (best[set * stops + last] >= INFINITY) {
+            // Some stop cannot be reached at all, so every order is as good as any other
+            return nearestNeighborOrder(costs);
+        }
+        int[] order = new int[stops + 1];
+        for (int i = stops; i > 0; i--) {
+            order[i] = last + 1;
+            int previous = before[set * stops + last];
+            set &= ~(1 << last);
+            last = previous;
+        }
+        return order;
+    }
+
+    private static int[] nearestNeighborOrder(DistanceMatrix costs) {
+        int size = costs.size();
+        int[] order = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        for (int i = 1; i < size; i++) {
+            int nearest = -1;
+            for (int stop = 1; stop < size; stop++) {
+                if (!visited[stop] && (nearest == -1 ||
+                    cost(costs, order[i - 1], stop) < cost(costs, order[i - 1], nearest))) {
+                    nearest = stop;
+                }
+            }
+            order[i] = nearest;
+            visited[nearest] = true;
+        }
+        return order;
+    }
+
+    /**
+     * Applies the first 2-opt or Or-opt move that makes the order cheaper until none does. Costs are not
+     * symmetric, so every move is judged by the cost of the whole order.
+     */
+    private static void improve(DistanceMatrix costs, int[] order) {
+        long cost = cost(costs, order);
+        int[] candidate = new int[order.length];
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int from = 1; from < order.length - 1 && !improved; from++) {
+                for (int to = from + 1; to < order.length && !improved; to++) {
+                    System.arraycopy(order, 0, candidate, 0, order.length);
+                    reverse(candidate, from, to);
+                    long candidateCost = cost(costs, candidate);
+                    if (candidateCost < cost) {
+                        System.arraycopy(candidate, 0, order, 0, order.length);
+                        cost = candidateCost;
+                        improved = true;
+                    }
+                }
+            }
+            for (int length = 1; length <= MAXIMUM_MOVED && !improved; length++) {
+                for (int from = 1; from + length <= order.length && !improved; from++) {
+                    for (int to = 1; to + length <= order.length && !improved; to++) {
+                        if (to == from) {
+                            continue;
+                        }
+                        move(order, candidate, from, length, to);
+                        long candidateCost = cost(costs, candidate);
+                        if (candidateCost < cost) {
+                            System.arraycopy(candidate, 0, order, 0, order.length);
+                            cost = candidateCost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Copies the order into the candidate with the stops from the given index moved to start at another index.
+     */
+    private static void move(int[] order, int[] candidate, int from, int length, int to) {
+        int[] rest = new int[order.length - length];
+        System.arraycopy(order, 0, rest, 0, from);
+        System.arraycopy(order, from + length, rest, from, order.length - from - length);
+        System.arraycopy(rest, 0, candidate, 0, to);
+        System.arraycopy(order, from, candidate, to, length);
+        System.arraycopy(rest, to, candidate, to + length, rest.length - to);
+    }
+}
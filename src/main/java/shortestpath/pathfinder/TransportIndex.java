@@ -0,0 +1,151 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+
+/**
+ * Transports in compressed rows, keyed by the packed tile at one of their ends. The keys are sorted, and the
+ * transports of the key at row r are the edges from {@link #getStart} to {@link #getEnd} of that row, each with
+ * the packed tile at its other end and its cost already worked out.
+ *
+ * Most tiles have no transports, so a bit per hashed tile is checked before the keys are searched. A clear bit
+ * means the tile has none; a set bit is only a hint, as several tiles share it.
+ */
+public class TransportIndex {
+    public static final int NONE = -1;
+    private static final TransportIndex EMPTY = new TransportIndex(new int[0], new int[1], new int[0], new int[0], new Transport[0]);
+
+    private final int[] keys;
+    private final int[] starts;
+    private final int[] positions;
+    private final int[] costs;
+    private final Transport[] transports;
+    private final long[] filter;
+    private final int filterMask;
+
+    private TransportIndex(int[] keys, int[] starts, int[] positions, int[] costs, Transport[] transports) {
+        this.keys = keys;
+        this.starts = starts;
+        this.positions = positions;
+        this.costs = costs;
+        this.transports = transports;
+
+        // About 32 bits per key keeps the hint wrong for only a few percent of the tiles without transports
+        int bits = Integer.highestOneBit(Math.max(64, keys.length * 32 - 1)) << 1;
+        filter = new long[bits >>> 6];
+        filterMask = bits - 1;
+        for (int key : keys) {
+            int bit = IntIntHashMap.hash(key) & filterMask;
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public static TransportIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Indexes the transports by their origin, with their destination as the other end.
+     */
+    public static TransportIndex byOrigin(Map<WorldPoint, List<Transport>> transports) {
+        return index(transports, false);
+    }
+
+    /**
+     * Indexes the transports by their destination, with their origin as the other end, for searching backwards.
+     */
+    public static TransportIndex byDestination(Map<WorldPoint, List<Transport>> transports) {
+        return index(transports, true);
+    }
+
+    private static TransportIndex index(Map<WorldPoint, List<Transport>> transports, boolean byDestination) {
+        List<long[]> entries = new ArrayList<>();
+        List<Transport> all = new ArrayList<>();
+        for (List<Transport> origin : transports.values()) {
+            for (Transport transport : origin) {
+                int from = WorldPointUtil.packWorldPoint(transport.getOrigin());
+                int to = WorldPointUtil.packWorldPoint(transport.getDestination());
+                entries.add(new long[]{byDestination ? to : from, byDestination ? from : to, all.size()});
+                all.add(transport);
+            }
+        }
+        // Sorted by key, keeping the order of each tile's transports
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[2], b[2]));
+
+        int count = entries.size();
+        int[] keys = new int[count];
+        int[] starts = new int[count + 1];
+        int[] positions = new int[count];
+        int[] costs = new int[count];
+        Transport[] sorted = new Transport[count];
+        int rows = 0;
+        for (int i = 0; i < count; i++) {
+            long[] entry = entries.get(i);
+            int key = (int) entry[0];
+            if (rows == 0 || keys[rows - 1] != key) {
+                keys[rows] = key;
+                starts[rows] = i;
+                rows++;
+            }
+            Transport transport = all.get((int) entry[2]);
+            positions[i] = (int) entry[1];
+            costs[i] = byDestination
+                ? CollisionMap.transportCost(positions[i], key, transport.getWait())
+                : CollisionMap.transportCost(key, positions[i], transport.getWait());
+            sorted[i] = transport;
+        }
+        starts[rows] = count;
+        return new TransportIndex(Arrays.copyOf(keys, rows), Arrays.copyOf(starts, rows + 1), positions, costs, sorted);
+    }
+
+    /**
+     * The row of the tile, or {@link #NONE} if it has no transports.
+     */
+    public int find(int position) {
+        int bit = IntIntHashMap.hash(position) & filterMask;
+        if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+            return NONE;
+        }
+        int row = Arrays.binarySearch(keys, position);
+        return row >= 0 ? row : NONE;
+    }
+
+    public boolean contains(int position) {
+        return find(position) != NONE;
+    }
+
+    public int getStart(int row) {
+        return starts[row];
+    }
+
+    public int getEnd(int row) {
+        return starts[row + 1];
+    }
+
+    /**
+     * The packed tile at the other end of the transport.
+     */
+    public int getPosition(int edge) {
+        return positions[edge];
+    }
+
+    public int getCost(int edge) {
+        return costs[edge];
+    }
+
+    public Transport getTransport(int edge) {
+        return transports[edge];
+    }
+
+    /**
+     * The number of tiles with transports.
+     */
+    public int size() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,75 @@
+package pathfinder;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import shortestpath.pathfinder.BucketQueue;
+
+public class BucketQueueTest {
+    /** Past the last bucket, where priorities go to the overflow heap */
+    private static final long OVERFLOW_PRIORITY = 1L << 20;
+
+    @Test
+    public void pollsInPriorityOrder() {
+        Random random = new Random(1);
+        BucketQueue queue = new BucketQueue();
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        long[] priorities = new long[100000];
+        int added = 0;
+        for (int step = 0; step < priorities.length; step++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                int node = added++;
+                long priority = random.nextInt(10) == 0 ? OVERFLOW_PRIORITY + random.nextInt(1000) : random.nextInt(5000);
+                priorities[node] = priority;
+                queue.add(node, priority);
+                expected.add(priority);
+            } else {
+                long priority = expected.poll();
+                Assert.assertEquals(priority, queue.peekPriority());
+                Assert.assertEquals(priority, priorities[queue.poll()]);
+            }
+            Assert.assertEquals(expected.size(), queue.size());
+        }
+    }
+
+    @Test
+    public void acceptsPrioritiesBelowTheMinimum() {
+        BucketQueue queue = new BucketQueue();
+        queue.add(1, 100);
+        queue.add(2, 200);
+        Assert.assertEquals(1, queue.poll());
+        queue.add(3, 50);
+        Assert.assertEquals(50, queue.peekPriority());
+        Assert.assertEquals(3, queue.poll());
+        Assert.assertEquals(2, queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void pollsEqualPrioritiesLastInFirstOut() {
+        BucketQueue queue = new BucketQueue();
+        for (int node = 0; node < 20; node++) {
+            queue.add(node, 7);
+        }
+        for (int node = 19; node >= 0; node--) {
+            Assert.assertEquals(node, queue.poll());
+        }
+    }
+
+    @Test
+    public void reorderDropsNegativePriorities() {
+        BucketQueue queue = new BucketQueue();
+        for (int node = 0; node < 100; node++) {
+            queue.add(node, node);
+        }
+        // Odd nodes are dropped, even nodes come out in reverse
+        queue.reorder(node -> node % 2 == 1 ? -1 : 1000 - node);
+        Assert.assertEquals(50, queue.size());
+        for (int node = 98; node >= 0; node -= 2) {
+            Assert.assertEquals(1000 - node, queue.peekPriority());
+            Assert.assertEquals(node, queue.poll());
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
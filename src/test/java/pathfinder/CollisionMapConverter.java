@@ -0,0 +1,42 @@
+package pathfinder;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import shortestpath.Util;
+import shortestpath.pathfinder.FlagMapFile;
+import shortestpath.pathfinder.SplitFlagMap;
+
+/**
+ * Converts a zip of gzipped collision map regions, named "regionX_regionY", into the memory-mapped format.
+ */
+public class CollisionMapConverter {
+    public static void main(String[] args) throws IOException {
+        String source = args.length > 0 ? args[0] : "collision-map.zip";
+        String destination = args.length > 1 ? args[1] : "src/main/resources/collision-map.bin";
+
+        Map<SplitFlagMap.Position, byte[]> regions = new TreeMap<>((a, b) -> a.x != b.x ? Integer.compare(a.x, b.x) : Integer.compare(a.y, b.y));
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(Paths.get(source)))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String[] n = entry.getName().split("_");
+                InputStream region = new GZIPInputStream(in);
+                regions.put(new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])), Util.readAllBytes(region));
+            }
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(destination)))) {
+            FlagMapFile.write(regions, out);
+        }
+
+        System.out.println("Wrote " + regions.size() + " regions to " + destination);
+    }
+}
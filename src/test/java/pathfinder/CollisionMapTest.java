@@ -0,0 +1,75 @@
+package pathfinder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.SplitFlagMap;
+
+public class CollisionMapTest {
+    private static final int REGION_SIZE = 64;
+    private static final int PLANE_COUNT = 4;
+
+    @Test
+    public void traversableMatchesCollisionFlags() {
+        CollisionMap map = CollisionMap.fromResources();
+
+        for (SplitFlagMap.Position region : map.getRegionPositions()) {
+            for (int z = 0; z < PLANE_COUNT; z++) {
+                for (int y = region.y * REGION_SIZE; y < (region.y + 1) * REGION_SIZE; y++) {
+                    for (int x = region.x * REGION_SIZE; x < (region.x + 1) * REGION_SIZE; x++) {
+                        if (map.getTraversable(x, y, z) != expectedTraversable(map, x, y, z)) {
+                            Assert.fail("Traversable directions differ at " + x + ", " + y + ", " + z);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The neighbor rules as written in the collision map before traversable directions were cached,
+     * as a bitmask in {@link shortestpath.pathfinder.OrdinalDirection} order (W, E, S, N, SW, SE, NW, NE).
+     */
+    private static int expectedTraversable(CollisionMap map, int x, int y, int z) {
+        boolean[] traversable;
+        if (map.isBlocked(x, y, z)) {
+            boolean westBlocked = map.isBlocked(x - 1, y, z);
+            boolean eastBlocked = map.isBlocked(x + 1, y, z);
+            boolean southBlocked = map.isBlocked(x, y - 1, z);
+            boolean northBlocked = map.isBlocked(x, y + 1, z);
+            boolean southWestBlocked = map.isBlocked(x - 1, y - 1, z);
+            boolean southEastBlocked = map.isBlocked(x + 1, y - 1, z);
+            boolean northWestBlocked = map.isBlocked(x - 1, y + 1, z);
+            boolean northEastBlocked = map.isBlocked(x + 1, y + 1, z);
+            traversable = new boolean[] {
+                !westBlocked,
+                !eastBlocked,
+                !southBlocked,
+                !northBlocked,
+                !southWestBlocked && !westBlocked && !southBlocked,
+                !southEastBlocked && !eastBlocked && !southBlocked,
+                !northWestBlocked && !westBlocked && !northBlocked,
+                !northEastBlocked && !eastBlocked && !northBlocked
+            };
+        } else {
+            traversable = new boolean[] {
+                map.w(x, y, z),
+                map.e(x, y, z),
+                map.s(x, y, z),
+                map.n(x, y, z),
+                map.s(x, y, z) && map.w(x, y - 1, z) && map.w(x, y, z) && map.s(x - 1, y, z),
+                map.s(x, y, z) && map.e(x, y - 1, z) && map.e(x, y, z) && map.s(x + 1, y, z),
+                map.n(x, y, z) && map.w(x, y + 1, z) && map.w(x, y, z) && map.n(x - 1, y, z),
+                map.n(x, y, z) && map.e(x, y + 1, z) && map.e(x, y, z) && map.n(x + 1, y, z)
+            };
+        }
+
+        int mask = 0;
+        for (int i = 0; i < traversable.length; i++) {
+            if (traversable[i]) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,122 @@
+package pathfinder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Assert;
+import org.junit.Test;
+import shortestpath.ShortestPathConfig;
+import shortestpath.ShortestPathPlugin;
+import shortestpath.Transport;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.ContractionHierarchy;
+import shortestpath.pathfinder.FlagMapFile;
+import shortestpath.pathfinder.NeighborList;
+import shortestpath.pathfinder.RegionGraph;
+import shortestpath.pathfinder.SplitFlagMap;
+
+public class ContractionHierarchyTest {
+    private static final int REGION_SIZE = 64;
+    /** The regions around Lumbridge, Draynor and Varrock, so the hierarchy builds in seconds */
+    private static final int MIN_REGION_X = 48;
+    private static final int MAX_REGION_X = 50;
+    private static final int MIN_REGION_Y = 49;
+    private static final int MAX_REGION_Y = 53;
+    private static final int ROUTES = 200;
+
+    /**
+     * Routes through the hierarchy cost as much as the shortest paths through the region graph it was built from.
+     */
+    @Test
+    public void routeCostsMatchRegionGraph() throws Exception {
+        Map<SplitFlagMap.Position, ByteBuffer> regions = new HashMap<>();
+        for (Map.Entry<SplitFlagMap.Position, ByteBuffer> region : FlagMapFile.read(
+            FlagMapFile.load(ShortestPathPlugin.class.getResource("/collision-map.bin"))).entrySet()) {
+            SplitFlagMap.Position position = region.getKey();
+            if (position.x >= MIN_REGION_X && position.x <= MAX_REGION_X &&
+                position.y >= MIN_REGION_Y && position.y <= MAX_REGION_Y) {
+                regions.put(position, region.getValue());
+            }
+        }
+        CollisionMap map = new CollisionMap(REGION_SIZE, regions);
+
+        Map<WorldPoint, List<Transport>> transports = new HashMap<>();
+        for (List<Transport> origin : Transport.fromResources(new ShortestPathConfig() {
+            @Override
+            public boolean useTeleports() {
+                return true;
+            }
+        }).values()) {
+            for (Transport transport : origin) {
+                if (isInside(transport.getOrigin()) && isInside(transport.getDestination())) {
+                    transports.computeIfAbsent(transport.getOrigin(), k -> new ArrayList<>()).add(transport);
+                }
+            }
+        }
+
+        RegionGraph graph = new RegionGraph(map, transports, false);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, transport -> true, "test");
+        int[] nodes = graph.getAllNodes();
+
+        Random random = new Random(1);
+        for (int i = 0; i < ROUTES; i++) {
+            int source = nodes[random.nextInt(nodes.length)];
+            int target = nodes[random.nextInt(nodes.length)];
+            int expected = shortestCost(graph, source, target);
+            ContractionHierarchy.Route route = hierarchy.route(new int[]{source}, new int[]{0}, new int[]{target}, new int[]{0});
+            if (expected == Integer.MAX_VALUE) {
+                Assert.assertNull("Route found to an unreachable node", route);
+                continue;
+            }
+            Assert.assertNotNull("No route found", route);
+            Assert.assertEquals("Route cost", expected, route.getTotalCost());
+            Assert.assertEquals(source, route.getPosition(0));
+            Assert.assertEquals(target, route.getPosition(route.size() - 1));
+            for (int j = 1; j < route.size(); j++) {
+                Assert.assertTrue("Route costs decrease", route.getCost(j) >= route.getCost(j - 1));
+            }
+        }
+    }
+
+    private static boolean isInside(WorldPoint point) {
+        int regionX = point.getX() / REGION_SIZE;
+        int regionY = point.getY() / REGION_SIZE;
+        return regionX >= MIN_REGION_X && regionX <= MAX_REGION_X && regionY >= MIN_REGION_Y && regionY <= MAX_REGION_Y;
+    }
+
+    /**
+     * Dijkstra's algorithm over the region graph.
+     */
+    private static int shortestCost(RegionGraph graph, int source, int target) {
+        Map<Integer, Integer> costs = new HashMap<>();
+        PriorityQueue<long[]> boundary = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        NeighborList neighbors = new NeighborList();
+        costs.put(source, 0);
+        boundary.add(new long[]{0, source});
+        while (!boundary.isEmpty()) {
+            long[] next = boundary.poll();
+            int cost = (int) next[0];
+            int position = (int) next[1];
+            if (position == target) {
+                return cost;
+            }
+            if (cost > costs.get(position)) {
+                continue;
+            }
+            graph.getNeighbors(position, transport -> true, neighbors);
+            for (int i = 0; i < neighbors.size(); i++) {
+                int neighborCost = cost + neighbors.getCost(i);
+                if (neighborCost < costs.getOrDefault(neighbors.getPosition(i), Integer.MAX_VALUE)) {
+                    costs.put(neighbors.getPosition(i), neighborCost);
+                    boundary.add(new long[]{neighborCost, neighbors.getPosition(i)});
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,89 @@
+package pathfinder;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Assert;
+import org.junit.Test;
+import shortestpath.ShortestPathConfig;
+import shortestpath.ShortestPathPlugin;
+import shortestpath.Transport;
+import shortestpath.WorldPointUtil;
+import shortestpath.pathfinder.CollisionMap;
+
+public class FairyRingTest {
+    /** The wait of travelling between any two fairy rings */
+    private static final int FAIRY_RING_WAIT = 5;
+
+    /**
+     * Every ring reaches every other ring through the hub for the cost of a single ring, and needs the quest of
+     * the ring it travels to, as the transports between every pair of rings did before the hub.
+     */
+    @Test
+    public void hubCostsMatchPairwiseRingCosts() throws Exception {
+        Map<WorldPoint, List<Transport>> transports = Transport.fromResources(new ShortestPathConfig() {
+            @Override
+            public boolean useFairyRings() {
+                return true;
+            }
+        });
+        List<WorldPoint> rings = new ArrayList<>();
+        List<String> questNames = new ArrayList<>();
+        readRings(rings, questNames);
+        int hub = WorldPointUtil.packWorldPoint(Transport.FAIRY_RING_HUB);
+
+        List<Transport> fromHub = transports.get(Transport.FAIRY_RING_HUB);
+        Assert.assertEquals(rings.size(), fromHub.size());
+        for (int i = 0; i < rings.size(); i++) {
+            Transport toHub = findTransport(transports.get(rings.get(i)), Transport.FAIRY_RING_HUB);
+            Assert.assertNotNull("No transport to the hub from " + rings.get(i), toHub);
+            for (int j = 0; j < rings.size(); j++) {
+                if (i == j) {
+                    continue;
+                }
+                Transport toRing = findTransport(fromHub, rings.get(j));
+                Assert.assertNotNull("No transport from the hub to " + rings.get(j), toRing);
+                int cost = CollisionMap.transportCost(WorldPointUtil.packWorldPoint(rings.get(i)), hub, toHub.getWait()) +
+                    CollisionMap.transportCost(hub, WorldPointUtil.packWorldPoint(rings.get(j)), toRing.getWait());
+                Assert.assertEquals("Cost from " + rings.get(i) + " to " + rings.get(j), FAIRY_RING_WAIT, cost);
+                Assert.assertEquals(questNames.get(j), toRing.getQuest() == null ? "" : toRing.getQuest().getName());
+            }
+        }
+    }
+
+    @Test
+    public void hubCannotBeWalkedTo() {
+        CollisionMap map = CollisionMap.fromResources();
+        WorldPoint hub = Transport.FAIRY_RING_HUB;
+        Assert.assertTrue(map.isBlocked(hub.getX(), hub.getY(), hub.getPlane()));
+        Assert.assertTrue(Transport.isHub(WorldPointUtil.packWorldPoint(hub)));
+    }
+
+    private static void readRings(List<WorldPoint> rings, List<String> questNames) throws Exception {
+        try (InputStream in = ShortestPathPlugin.class.getResourceAsStream("/fairy_rings.txt");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine();
+                if (line.startsWith("#") || line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("\t");
+                rings.add(new WorldPoint(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                questNames.add(parts.length >= 7 ? parts[6] : "");
+            }
+        }
+    }
+
+    private static Transport findTransport(List<Transport> transports, WorldPoint destination) {
+        for (Transport transport : transports) {
+            if (transport.getDestination().equals(destination)) {
+                return transport;
+            }
+        }
+        return null;
+    }
+}
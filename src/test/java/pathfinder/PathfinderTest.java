@@ -0,0 +1,212 @@
+package pathfinder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import shortestpath.ShortestPathConfig;
+import shortestpath.ShortestPathPlugin;
+import shortestpath.Transport;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.DistanceMatrix;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.PathfinderConfig;
+
+/**
+ * Checks that the searches that are meant to find the shortest path agree on its cost. The client is not logged
+ * in, so no skill levels or quest states are read and transports with requirements are left out.
+ */
+public class PathfinderTest {
+    private static final String[] MODES = {"single", "bidirectional", "jump point"};
+    private static final int ROUTES = 30;
+    private static final WorldPoint LUMBRIDGE = new WorldPoint(3222, 3218, 0);
+    /** Varrock, Falador, Draynor Village, Al Kharid and Port Sarim */
+    private static final WorldPoint[] TOWNS = {
+        new WorldPoint(3213, 3424, 0), new WorldPoint(2965, 3380, 0), new WorldPoint(3093, 3244, 0),
+        new WorldPoint(3293, 3174, 0), new WorldPoint(3041, 3236, 0),
+    };
+    private static final int TILES = 8;
+    /** Long enough for any of the routes, as the unreachable target takes the whole cutoff in every mode */
+    private static final int CALCULATION_CUTOFF = 5;
+
+    private int mode;
+    private ShortestPathConfig config;
+    private Map<WorldPoint, List<Transport>> transports;
+    private PathfinderConfig pathfinderConfig;
+
+    @Before
+    public void setUp() {
+        config = new ShortestPathConfig() {
+            @Override
+            public boolean bidirectionalSearch() {
+                return mode == 1;
+            }
+
+            @Override
+            public boolean jumpPointSearch() {
+                return mode == 2;
+            }
+
+            @Override
+            public int calculationCutoff() {
+                return CALCULATION_CUTOFF;
+            }
+        };
+        Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+            (proxy, method, methodArgs) -> null);
+
+        transports = Transport.fromResources(config);
+        pathfinderConfig = new PathfinderConfig(CollisionMap.fromResources(), transports, client, config, new ShortestPathPlugin());
+    }
+
+    @Test
+    public void searchModesFindPathsOfTheSameCost() {
+        // Tiles of paths reach each other, so no route runs until the cutoff
+        List<WorldPoint> tiles = new ArrayList<>();
+        for (WorldPoint town : TOWNS) {
+            Pathfinder walk = new Pathfinder(pathfinderConfig, LUMBRIDGE, town);
+            walk.run();
+            tiles.addAll(walk.getPath());
+        }
+        Random random = new Random(1);
+        List<WorldPoint[]> pairs = new ArrayList<>();
+        while (pairs.size() < ROUTES) {
+            pairs.add(new WorldPoint[]{tiles.get(random.nextInt(tiles.size())), tiles.get(random.nextInt(tiles.size()))});
+        }
+        // A target in the void, where the backward side of the bidirectional search runs out at once
+        pairs.add(new WorldPoint[]{LUMBRIDGE, new WorldPoint(2100, 5600, 0)});
+
+        for (WorldPoint[] pair : pairs) {
+            List<WorldPoint> expected = null;
+            for (mode = 0; mode < MODES.length; mode++) {
+                pathfinderConfig.refresh();
+                Pathfinder pathfinder = new Pathfinder(pathfinderConfig, pair[0], pair[1]);
+                pathfinder.run();
+                List<WorldPoint> path = pathfinder.getPath();
+                if (expected == null) {
+                    expected = path;
+                    continue;
+                }
+                String route = MODES[mode] + " search from " + pair[0] + " to " + pair[1];
+                boolean reached = expected.get(expected.size() - 1).equals(pair[1]);
+                // Jump point search only keeps some of the tiles it passes, so it may end elsewhere near an
+                // unreachable target
+                if (reached || mode != 2) {
+                    Assert.assertEquals(route + " ends elsewhere", expected.get(expected.size() - 1), path.get(path.size() - 1));
+                }
+                if (reached) {
+                    Assert.assertEquals(route + " costs differently", pathCost(expected), pathCost(path));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceMatrixMatchesSearches() {
+        // Tiles along a path reach each other, so no row runs until the cutoff
+        Pathfinder walk = new Pathfinder(pathfinderConfig, LUMBRIDGE, TOWNS[0]);
+        walk.run();
+        List<WorldPoint> path = walk.getPath();
+        Random random = new Random(2);
+        List<WorldPoint> points = new ArrayList<>();
+        while (points.size() < TILES) {
+            points.add(path.get(random.nextInt(path.size())));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        DistanceMatrix serial = DistanceMatrix.compute(pathfinderConfig, points, null, () -> false, pool);
+        pool.shutdown();
+        DistanceMatrix parallel = DistanceMatrix.compute(pathfinderConfig, points);
+        for (int from = 0; from < TILES; from++) {
+            for (int to = 0; to < TILES; to++) {
+                Assert.assertEquals("Parallel cost", serial.getCost(from, to), parallel.getCost(from, to));
+                Pathfinder pathfinder = new Pathfinder(pathfinderConfig, points.get(from), points.get(to));
+                pathfinder.run();
+                Assert.assertEquals("Cost from " + points.get(from) + " to " + points.get(to),
+                    pathCost(pathfinder.getPath()), serial.getCost(from, to));
+            }
+        }
+    }
+
+    /**
+     * Later legs of a tour start at stops far from the player, and still search all the way to their stop.
+     */
+    @Test
+    public void tourLegsGoOnFarFromThePlayer() {
+        PathfinderConfig playerConfig = playerConfig(LUMBRIDGE);
+        List<WorldPoint> stops = new ArrayList<>();
+        stops.add(TOWNS[2]);
+        stops.add(TOWNS[4]);
+        for (mode = 0; mode < MODES.length; mode++) {
+            Pathfinder tour = new Pathfinder(playerConfig, LUMBRIDGE, stops, null);
+            tour.run();
+            List<WorldPoint> path = tour.getPath();
+            for (WorldPoint stop : stops) {
+                Assert.assertTrue(MODES[mode] + " tour misses " + stop, path.contains(stop));
+            }
+        }
+    }
+
+    /**
+     * A search that starts too far from the player stops at once, and still leaves its start as the path.
+     */
+    @Test
+    public void searchesFarFromThePlayerKeepTheStart() {
+        PathfinderConfig playerConfig = playerConfig(LUMBRIDGE);
+        for (mode = 0; mode < MODES.length; mode++) {
+            playerConfig.refresh();
+            Pathfinder pathfinder = new Pathfinder(playerConfig, TOWNS[0], TOWNS[1]);
+            pathfinder.run();
+            List<WorldPoint> path = pathfinder.getPath();
+            Assert.assertFalse(MODES[mode] + " search leaves no path", path.isEmpty());
+            Assert.assertEquals(MODES[mode] + " search starts elsewhere", TOWNS[0], path.get(0));
+        }
+    }
+
+    /**
+     * A config whose client has a logged in player standing at the given tile.
+     */
+    private PathfinderConfig playerConfig(WorldPoint location) {
+        Player player = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+            (proxy, method, methodArgs) -> "getWorldLocation".equals(method.getName()) ? location : null);
+        Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+            (proxy, method, methodArgs) -> "getLocalPlayer".equals(method.getName()) ? player : null);
+        return new PathfinderConfig(CollisionMap.fromResources(), transports, client, config, new ShortestPathPlugin());
+    }
+
+    private int pathCost(List<WorldPoint> path) {
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            WorldPoint a = path.get(i - 1);
+            WorldPoint b = path.get(i);
+            if (a.getPlane() == b.getPlane() && a.distanceTo(b) <= 1) {
+                cost++;
+                continue;
+            }
+            int wait = Integer.MAX_VALUE;
+            for (Transport transport : transports.getOrDefault(a, new ArrayList<>())) {
+                if (transport.getDestination().equals(b)) {
+                    wait = Math.min(wait, transport.getWait());
+                }
+                // Paths leave out the hub of the fairy rings, so both transports through it are one step
+                if (transport.getDestination().equals(Transport.FAIRY_RING_HUB)) {
+                    for (Transport fromHub : transports.getOrDefault(Transport.FAIRY_RING_HUB, new ArrayList<>())) {
+                        if (fromHub.getDestination().equals(b)) {
+                            wait = Math.min(wait, transport.getWait() + fromHub.getWait());
+                        }
+                    }
+                }
+            }
+            cost += wait == Integer.MAX_VALUE ? 1 : wait;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,150 @@
+package pathfinder;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import shortestpath.pathfinder.DistanceMatrix;
+import shortestpath.pathfinder.TourPlanner;
+
+public class TourPlannerTest {
+    private static final int MAXIMUM_STOPS = 8;
+    private static final int MATRICES = 50;
+
+    @Test
+    public void exactOrderMatchesBruteForce() {
+        Random random = new Random(1);
+        for (int stops = 1; stops <= MAXIMUM_STOPS; stops++) {
+            for (int i = 0; i < MATRICES; i++) {
+                DistanceMatrix costs = randomCosts(random, stops + 1);
+                int[] order = TourPlanner.order(costs);
+                assertIsOrder(order, costs.size());
+                Assert.assertEquals("Cost of " + stops + " stops", cheapestCost(costs), TourPlanner.cost(costs, order));
+            }
+        }
+    }
+
+    @Test
+    public void heuristicOrderIsCloseToBruteForce() {
+        Random random = new Random(2);
+        long heuristicCost = 0;
+        long cheapestCost = 0;
+        for (int i = 0; i < MATRICES; i++) {
+            DistanceMatrix costs = planeCosts(random, MAXIMUM_STOPS + 1);
+            int[] order = TourPlanner.heuristicOrder(costs);
+            assertIsOrder(order, costs.size());
+            long cost = TourPlanner.cost(costs, order);
+            long cheapest = cheapestCost(costs);
+            Assert.assertTrue("Heuristic order cheaper than the cheapest order", cost >= cheapest);
+            heuristicCost += cost;
+            cheapestCost += cheapest;
+        }
+        // 2-opt and Or-opt usually end within a few percent of the cheapest order on tiles of a plane
+        Assert.assertTrue("Heuristic orders cost " + heuristicCost + " against " + cheapestCost,
+            heuristicCost <= cheapestCost * 105 / 100);
+    }
+
+    @Test
+    public void unreachableStopIsStillVisited() {
+        int u = DistanceMatrix.UNREACHABLE;
+        DistanceMatrix costs = DistanceMatrix.of(new int[][]{
+            {0, 1, u},
+            {1, 0, u},
+            {u, u, 0},
+        });
+        assertIsOrder(TourPlanner.order(costs), costs.size());
+    }
+
+    @Test
+    public void unreachableStopsGoLastBeyondTheExactStops() {
+        int size = TourPlanner.EXACT_STOPS + 4;
+        int unreachableStops = 4;
+        int[][] costs = new int[size][size];
+        Random random = new Random(3);
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                boolean unreachable = from >= size - unreachableStops || to >= size - unreachableStops;
+                costs[from][to] = from == to ? 0 : unreachable ? DistanceMatrix.UNREACHABLE : 1 + random.nextInt(100);
+            }
+        }
+        DistanceMatrix matrix = DistanceMatrix.of(costs);
+        int[] order = TourPlanner.order(matrix);
+        assertIsOrder(order, size);
+        Assert.assertTrue("Cost overflowed", TourPlanner.cost(matrix, order) > 0);
+        // Only the legs into the unreachable stops are unreachable once they are visited last
+        for (int i = size - unreachableStops; i < size; i++) {
+            Assert.assertTrue("Unreachable stop visited before a reachable one", order[i] >= size - unreachableStops);
+        }
+    }
+
+    /**
+     * Asymmetric costs between every pair, as transports only go one way.
+     */
+    private static DistanceMatrix randomCosts(Random random, int size) {
+        int[][] costs = new int[size][size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                costs[from][to] = from == to ? 0 : 1 + random.nextInt(100);
+            }
+        }
+        return DistanceMatrix.of(costs);
+    }
+
+    /**
+     * The diagonal distances between random tiles, as walking costs them.
+     */
+    private static DistanceMatrix planeCosts(Random random, int size) {
+        int[] x = new int[size];
+        int[] y = new int[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = random.nextInt(200);
+            y[i] = random.nextInt(200);
+        }
+        int[][] costs = new int[size][size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                costs[from][to] = Math.max(Math.abs(x[from] - x[to]), Math.abs(y[from] - y[to]));
+            }
+        }
+        return DistanceMatrix.of(costs);
+    }
+
+    private static void assertIsOrder(int[] order, int size) {
+        Assert.assertEquals(size, order.length);
+        Assert.assertEquals(0, order[0]);
+        boolean[] visited = new boolean[size];
+        for (int index : order) {
+            Assert.assertFalse("Index visited twice: " + index, visited[index]);
+            visited[index] = true;
+        }
+    }
+
+    private static long cheapestCost(DistanceMatrix costs) {
+        int[] order = new int[costs.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return cheapestCost(costs, order, 1);
+    }
+
+    /**
+     * The cheapest cost over every order of the indices from the given one on, swapping them in place.
+     */
+    private static long cheapestCost(DistanceMatrix costs, int[] order, int from) {
+        if (from >= order.length - 1) {
+            return TourPlanner.cost(costs, order);
+        }
+        long cheapest = Long.MAX_VALUE;
+        for (int i = from; i < order.length; i++) {
+            swap(order, from, i);
+            cheapest = Math.min(cheapest, cheapestCost(costs, order, from + 1));
+            swap(order, from, i);
+        }
+        return cheapest;
+    }
+
+    private static void swap(int[] order, int i, int j) {
+        int swap = order[i];
+        order[i] = order[j];
+        order[j] = swap;
+    }
+}